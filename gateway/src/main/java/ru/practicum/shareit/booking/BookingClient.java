@@ -1,13 +1,17 @@
 package ru.practicum.shareit.booking;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
 import ru.practicum.shareit.booking.dto.NewBookingAddRequest;
@@ -28,26 +32,50 @@ public class BookingClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> addBooking(Long userId, NewBookingAddRequest newBookingAddRequest) {
-        return post("", userId, newBookingAddRequest);
+    public ResponseEntity<Object> addBooking(Long userId, String idempotencyKey, NewBookingAddRequest newBookingAddRequest) {
+        return postIdempotent("", userId, idempotencyKey, newBookingAddRequest);
+    }
+
+    public ResponseEntity<Object> addBookings(Long userId, List<NewBookingAddRequest> newBookingAddRequests) {
+        return post("/batch", userId, newBookingAddRequests);
     }
 
     public ResponseEntity<Object> approvedBooking(Long userId, Long bookingId, Boolean approved) {
         return patch1("/" + bookingId + "?approved=" + approved, (Long) userId);
     }
 
+    public ResponseEntity<Object> approvedBookings(Long userId, List<Long> bookingIds, Boolean approved) {
+        return patch("/batch?approved=" + approved, userId, bookingIds);
+    }
+
     public ResponseEntity<Object> getBookingByBookerIdOrOwnerId(Long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getUserBookings(Long userId, StateParam stateParam) {
-        Map<String, Object> parameters = Map.of("state", stateParam);
-        return get("", userId, parameters);
+    public ResponseEntity<Object> getUserBookings(Long userId, StateParam stateParam, String cursor, int size) {
+        Map<String, Object> parameters = Map.of(
+                "state", stateParam,
+                "cursor", Objects.requireNonNullElse(cursor, ""),
+                "size", size
+        );
+        return get("?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> getBookingsForItemsByOwnerId(Long userId, StateParam stateParam, String cursor, int size) {
+        Map<String, Object> parameters = Map.of(
+                "state", stateParam,
+                "cursor", Objects.requireNonNullElse(cursor, ""),
+                "size", size
+        );
+        return get("/owner?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> getOwnerBookingSummary(Long userId) {
+        return get("/owner/summary", userId);
     }
 
-    public ResponseEntity<Object> getBookingsForItemsByOwnerId(Long userId, StateParam stateParam) {
-        Map<String, Object> parameters = Map.of("state", stateParam);
-        return get("/owner", userId, parameters);
+    public ResponseEntity<StreamingResponseBody> exportOwnerBookings(Long userId) {
+        return stream("/owner/export", userId, MediaType.APPLICATION_NDJSON);
     }
 
 }
\ No newline at end of file
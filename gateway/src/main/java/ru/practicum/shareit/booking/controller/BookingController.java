@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking.controller;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,7 +12,10 @@ import ru.practicum.shareit.booking.dto.NewBookingAddRequest;
 import ru.practicum.shareit.booking.dto.StateParam;
 import ru.practicum.shareit.util.AppValidation;
 
+import java.util.List;
+
 import static ru.practicum.shareit.util.AppConstant.CUSTOM_REQUEST_HEADER_USER_ID;
+import static ru.practicum.shareit.util.AppConstant.IDEMPOTENCY_KEY_HEADER;
 
 @Slf4j
 @Validated
@@ -24,10 +28,19 @@ public class BookingController {
 
     @PostMapping
     public ResponseEntity<Object> addBooking(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
+                                             @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
                                              @RequestBody NewBookingAddRequest newBookingAddRequest) {
         AppValidation.bookingValidator(newBookingAddRequest);
-        log.info("BookingController: Создание бронирования: пользовательId={}, запрос={}", userId, newBookingAddRequest);
-        return bookingClient.addBooking(userId, newBookingAddRequest);
+        log.info("BookingController: Создание бронирования: пользовательId={}, ключ={}, запрос={}", userId, idempotencyKey, newBookingAddRequest);
+        return bookingClient.addBooking(userId, idempotencyKey, newBookingAddRequest);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<Object> addBookings(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
+                                              @RequestBody List<NewBookingAddRequest> newBookingAddRequests) {
+        AppValidation.bookingBatchValidator(newBookingAddRequests);
+        log.info("BookingController: Пакетное создание бронирований: пользовательId={}, количество={}", userId, newBookingAddRequests.size());
+        return bookingClient.addBookings(userId, newBookingAddRequests);
     }
 
     @PatchMapping("/{bookingId}")
@@ -38,6 +51,15 @@ public class BookingController {
         return bookingClient.approvedBooking(userId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> approvedBookings(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
+                                                   @RequestParam(name = "approved") Boolean approved,
+                                                   @RequestBody List<Long> bookingIds) {
+        AppValidation.bookingIdsValidator(bookingIds);
+        log.info("BookingController: Пакетное подтверждение бронирований: пользовательId={}, bookingIds={}, approved={}", userId, bookingIds, approved);
+        return bookingClient.approvedBookings(userId, bookingIds, approved);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> getBookingByBookerIdOrOwnerId(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
                                                                 @PathVariable(name = "bookingId") Long bookingId) {
@@ -47,16 +69,34 @@ public class BookingController {
 
     @GetMapping
     public ResponseEntity<Object> getUserBookings(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
-                                                  @RequestParam(name = "state", defaultValue = "ALL") String state) {
-        log.info("BookingController: Получение списка бронирований пользователя: пользовательId={}, state={}", userId, state);
-        return bookingClient.getUserBookings(userId, StateParam.fromString(state));
+                                                  @RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                  @RequestParam(name = "cursor", required = false) String cursor,
+                                                  @RequestParam(name = "size", defaultValue = "20") int size) {
+        AppValidation.pageSizeValidator(size);
+        log.info("BookingController: Получение списка бронирований пользователя: пользовательId={}, state={}, cursor={}, size={}", userId, state, cursor, size);
+        return bookingClient.getUserBookings(userId, StateParam.fromString(state), cursor, size);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> getBookingsForItemsByOwnerId(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
-                                                               @RequestParam(name = "state", defaultValue = "ALL") StateParam state) {
-        log.info("BookingController: Получение бронирований для вещей владельца: владелецId={}, state={}", userId, state);
-        return bookingClient.getBookingsForItemsByOwnerId(userId, state);
+                                                               @RequestParam(name = "state", defaultValue = "ALL") StateParam state,
+                                                               @RequestParam(name = "cursor", required = false) String cursor,
+                                                               @RequestParam(name = "size", defaultValue = "20") int size) {
+        AppValidation.pageSizeValidator(size);
+        log.info("BookingController: Получение бронирований для вещей владельца: владелецId={}, state={}, cursor={}, size={}", userId, state, cursor, size);
+        return bookingClient.getBookingsForItemsByOwnerId(userId, state, cursor, size);
+    }
+
+    @GetMapping("/owner/summary")
+    public ResponseEntity<Object> getOwnerBookingSummary(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId) {
+        log.info("BookingController: Получение счётчиков бронирований владельца: владелецId={}", userId);
+        return bookingClient.getOwnerBookingSummary(userId);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportOwnerBookings(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId) {
+        log.info("BookingController: Выгрузка бронирований владельца: владелецId={}", userId);
+        return bookingClient.exportOwnerBookings(userId);
     }
 
 }
\ No newline at end of file
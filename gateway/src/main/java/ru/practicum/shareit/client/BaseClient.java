@@ -1,5 +1,8 @@
 package ru.practicum.shareit.client;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -9,12 +12,19 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.shareit.util.PageResponse;
 
+import static ru.practicum.shareit.util.AppConstant.CUSTOM_REQUEST_HEADER_USER_ID;
+import static ru.practicum.shareit.util.AppConstant.IDEMPOTENCY_KEY_HEADER;
+
 public class BaseClient {
     protected final RestTemplate rest;
 
@@ -61,6 +71,14 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
+    protected <T> ResponseEntity<Object> postIdempotent(String path, long userId, @Nullable String idempotencyKey, T body) {
+        HttpHeaders headers = defaultHeaders(userId);
+        if (idempotencyKey != null) {
+            headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        return sendRequest(HttpMethod.POST, path, new HttpEntity<>(body, headers), null);
+    }
+
     protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
@@ -97,9 +115,46 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    // Ответ сервера не читается в память: заголовки и статус проверяются сразу, а тело копируется клиенту
+    // по мере поступления, когда контейнер начнёт писать StreamingResponseBody
+    protected ResponseEntity<StreamingResponseBody> stream(String path, long userId, MediaType mediaType) {
+        URI uri = rest.getUriTemplateHandler().expand(path);
+        ClientHttpResponse response;
+        try {
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, HttpMethod.GET);
+            request.getHeaders().setAccept(List.of(mediaType));
+            request.getHeaders().set(CUSTOM_REQUEST_HEADER_USER_ID, String.valueOf(userId));
+            response = request.execute();
+        } catch (IOException e) {
+            throw new ResourceAccessException("сервер недоступен: " + e.getMessage(), e);
+        }
+        try {
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                try (response; InputStream body = response.getBody()) {
+                    byte[] error = body.readAllBytes();
+                    return ResponseEntity.status(response.getStatusCode())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(outputStream -> outputStream.write(error));
+                }
+            }
+        } catch (IOException e) {
+            response.close();
+            throw new ResourceAccessException("ошибка чтения ответа сервера: " + e.getMessage(), e);
+        }
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(outputStream -> {
+                    try (response; InputStream body = response.getBody()) {
+                        body.transferTo(outputStream);
+                    }
+                });
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        return sendRequest(method, path, new HttpEntity<>(body, defaultHeaders(userId)), parameters);
+    }
 
+    private <T> ResponseEntity<Object> sendRequest(HttpMethod method, String path, HttpEntity<T> requestEntity, @Nullable Map<String, Object> parameters) {
         ResponseEntity<Object> shareitServerResponse;
         try {
             if (parameters != null) {
@@ -12,23 +12,38 @@ import ru.practicum.shareit.item.dto.NewCommentAddRequest;
 import ru.practicum.shareit.item.dto.NewItemAddRequest;
 import ru.practicum.shareit.item.dto.UpdateItemRequest;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
 @Service
 public class ItemClient extends BaseClient {
 
     private static final String API_PREFIX = "/items";
 
+    // Должен совпадать с shareit.items.suggest.top-size сервера: больше подсказок сервер не хранит
+    private final int suggestTopSize;
+
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl,
+                      @Value("${shareit.items.suggest.top-size:10}") int suggestTopSize,
+                      RestTemplateBuilder builder) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
                         .build()
         );
+        this.suggestTopSize = suggestTopSize;
     }
 
-    public ResponseEntity<Object> addItem(Long userId, NewItemAddRequest newItemAddRequest) {
-        return post("", userId, newItemAddRequest);
+    public int getSuggestTopSize() {
+        return suggestTopSize;
+    }
+
+    public ResponseEntity<Object> addItem(Long userId, String idempotencyKey, NewItemAddRequest newItemAddRequest) {
+        return postIdempotent("", userId, idempotencyKey, newItemAddRequest);
     }
 
     public ResponseEntity<Object> updateItem(Long itemId, Long userId, UpdateItemRequest updateItemRequest) {
@@ -43,12 +58,39 @@ public class ItemClient extends BaseClient {
         return get("", userId);
     }
 
+    public ResponseEntity<Object> getItemAvailability(Long itemId, Long userId, LocalDate from, LocalDate to, String unit) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to,
+                "unit", unit
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}&unit={unit}", userId, parameters);
+    }
+
     public ResponseEntity<Object> deleteItem(Long itemId, Long userId) {
         return delete("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> searchItemsByText(Long userId, String text) {
-        return get("/search?text=" + text, userId);
+    // Страница (content, number, size, totalElements, totalPages, last) и ошибки сервера передаются клиенту как есть
+    public ResponseEntity<Object> searchItemsByText(Long userId, String text,
+                                                    LocalDateTime from, LocalDateTime to,
+                                                    boolean fuzzy, int page, int size) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("text", text);
+        parameters.put("fuzzy", fuzzy);
+        parameters.put("page", page);
+        parameters.put("size", size);
+        String path = "/search?text={text}&fuzzy={fuzzy}&page={page}&size={size}";
+        if (from != null) {
+            parameters.put("from", from);
+            parameters.put("to", to);
+            path += "&from={from}&to={to}";
+        }
+        return get(path, userId, parameters);
+    }
+
+    public ResponseEntity<Object> suggestItems(Long userId, String prefix, int size) {
+        return get("/suggest?prefix={prefix}&size={size}", userId, Map.of("prefix", prefix, "size", size));
     }
 
     public ResponseEntity<Object> addComment(Long userId, Long itemId, NewCommentAddRequest newCommentAddRequest) {
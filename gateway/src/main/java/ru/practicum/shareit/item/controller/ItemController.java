@@ -2,13 +2,18 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.ItemClient;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.util.AppValidation;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 import static ru.practicum.shareit.util.AppConstant.CUSTOM_REQUEST_HEADER_USER_ID;
+import static ru.practicum.shareit.util.AppConstant.IDEMPOTENCY_KEY_HEADER;
 
 @Slf4j
 @RestController
@@ -20,10 +25,11 @@ public class ItemController {
 
     @PostMapping
     public ResponseEntity<Object> addItem(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
+                                          @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
                                           @RequestBody NewItemAddRequest newItemAddRequest) {
         AppValidation.itemValidator(newItemAddRequest);
-        log.info("ItemController: Создание вещи: пользовательId={}, запрос={}", userId, newItemAddRequest);
-        return itemClient.addItem(userId, newItemAddRequest);
+        log.info("ItemController: Создание вещи: пользовательId={}, ключ={}, запрос={}", userId, idempotencyKey, newItemAddRequest);
+        return itemClient.addItem(userId, idempotencyKey, newItemAddRequest);
     }
 
     @PatchMapping("/{itemId}")
@@ -47,6 +53,16 @@ public class ItemController {
         return itemClient.getItemsByUserId(userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getItemAvailability(@PathVariable(value = "itemId") Long itemId,
+                                                      @RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
+                                                      @RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                      @RequestParam(value = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                      @RequestParam(value = "unit", defaultValue = "DAY") String unit) {
+        log.info("ItemController: Получение календаря занятости: itemId={}, from={}, to={}, unit={}", itemId, from, to, unit);
+        return itemClient.getItemAvailability(itemId, userId, from, to, unit);
+    }
+
     @DeleteMapping("/{itemId}")
     public ResponseEntity<Object> deleteItem(@PathVariable(value = "itemId") Long itemId,
                                              @RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId) {
@@ -56,9 +72,27 @@ public class ItemController {
 
     @GetMapping("/search")
     public ResponseEntity<Object> searchItems(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
-                                              @RequestParam(value = "text") String text) {
-        log.info("ItemController: Поиск вещей по тексту: '{}'", text);
-        return itemClient.searchItemsByText(userId, text);
+                                              @RequestParam(value = "text") String text,
+                                              @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                              @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                              @RequestParam(defaultValue = "false") boolean fuzzy,
+                                              @RequestParam(defaultValue = "0") int page,
+                                              @RequestParam(defaultValue = "10") int size) {
+        AppValidation.searchPeriodValidator(from, to);
+        AppValidation.pageValidator(page);
+        AppValidation.pageSizeValidator(size);
+        log.info("ItemController: Поиск вещей по тексту: '{}', from={}, to={}, с опечатками={}, страница={}, размер={}",
+                text, from, to, fuzzy, page, size);
+        return itemClient.searchItemsByText(userId, text, from, to, fuzzy, page, size);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> suggestItems(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
+                                               @RequestParam(value = "prefix") String prefix,
+                                               @RequestParam(defaultValue = "10") int size) {
+        AppValidation.suggestSizeValidator(size, itemClient.getSuggestTopSize());
+        log.info("ItemController: Подсказки по префиксу: '{}', размер={}", prefix, size);
+        return itemClient.suggestItems(userId, prefix, size);
     }
 
     @PostMapping("/{itemId}/comment")
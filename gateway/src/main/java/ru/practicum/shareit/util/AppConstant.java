@@ -7,4 +7,6 @@ public class AppConstant {
 
     public static final String CUSTOM_REQUEST_HEADER_USER_ID = "X-Sharer-User-Id";
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
 }
\ No newline at end of file
@@ -8,6 +8,9 @@ import ru.practicum.shareit.item.dto.NewCommentAddRequest;
 import ru.practicum.shareit.item.dto.NewItemAddRequest;
 import ru.practicum.shareit.user.dto.NewUserAddRequest;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Slf4j
 @UtilityClass
 public final class AppValidation {
@@ -53,6 +56,65 @@ public final class AppValidation {
         log.info("AppValidation: Валидация бронирования пройдена, start={}, end={}", newBookingAddRequest.getStart(), newBookingAddRequest.getEnd());
     }
 
+    public static void bookingBatchValidator(List<NewBookingAddRequest> newBookingAddRequests) {
+        log.info("AppValidation: Проверка пакета бронирований, количество={}",
+                newBookingAddRequests == null ? null : newBookingAddRequests.size());
+        if (newBookingAddRequests == null || newBookingAddRequests.isEmpty() || newBookingAddRequests.size() > 500) {
+            log.warn("AppValidation: Ошибка валидации пакета бронирований: некорректное количество заявок");
+            throw new ValidationException("пакет должен содержать от 1 до 500 бронирований");
+        }
+        if (newBookingAddRequests.contains(null)) {
+            log.warn("AppValidation: Ошибка валидации пакета бронирований: пустая заявка в пакете");
+            throw new ValidationException("пакет бронирований не должен содержать пустых заявок");
+        }
+        log.info("AppValidation: Валидация пакета бронирований пройдена, количество={}", newBookingAddRequests.size());
+    }
+
+    public static void bookingIdsValidator(List<Long> bookingIds) {
+        log.info("AppValidation: Проверка списка бронирований, bookingIds={}", bookingIds);
+        if (bookingIds == null || bookingIds.isEmpty() || bookingIds.size() > 500 || bookingIds.contains(null)) {
+            log.warn("AppValidation: Ошибка валидации списка бронирований, bookingIds={}", bookingIds);
+            throw new ValidationException("список должен содержать от 1 до 500 id бронирований");
+        }
+        log.info("AppValidation: Валидация списка бронирований пройдена, количество={}", bookingIds.size());
+    }
+
+    public static void pageSizeValidator(int size) {
+        log.info("AppValidation: Проверка размера страницы, size={}", size);
+        if (size < 1 || size > 100) {
+            log.warn("AppValidation: Ошибка валидации размера страницы, size={}", size);
+            throw new ValidationException("размер страницы должен быть от 1 до 100");
+        }
+        log.info("AppValidation: Валидация размера страницы пройдена, size={}", size);
+    }
+
+    public static void suggestSizeValidator(int size, int maxSize) {
+        log.info("AppValidation: Проверка количества подсказок, size={}", size);
+        if (size < 1 || size > maxSize) {
+            log.warn("AppValidation: Ошибка валидации количества подсказок, size={}", size);
+            throw new ValidationException("количество подсказок должно быть от 1 до " + maxSize);
+        }
+        log.info("AppValidation: Валидация количества подсказок пройдена, size={}", size);
+    }
+
+    public static void pageValidator(int page) {
+        log.info("AppValidation: Проверка номера страницы, page={}", page);
+        if (page < 0) {
+            log.warn("AppValidation: Ошибка валидации номера страницы, page={}", page);
+            throw new ValidationException("номер страницы не может быть отрицательным");
+        }
+        log.info("AppValidation: Валидация номера страницы пройдена, page={}", page);
+    }
+
+    public static void searchPeriodValidator(LocalDateTime from, LocalDateTime to) {
+        log.info("AppValidation: Проверка периода поиска, from={}, to={}", from, to);
+        if ((from == null) != (to == null) || from != null && !from.isBefore(to)) {
+            log.warn("AppValidation: Ошибка валидации периода поиска, from={}, to={}", from, to);
+            throw new ValidationException("период поиска должен содержать from и to, причём from раньше to");
+        }
+        log.info("AppValidation: Валидация периода поиска пройдена, from={}, to={}", from, to);
+    }
+
     public static void commentValidator(NewCommentAddRequest newCommentAddRequest) {
         log.info("AppValidation: Проверка комментария, текст={}", newCommentAddRequest.getText());
         if (newCommentAddRequest.getText().trim().isBlank()) {
@@ -1,17 +1,31 @@
 package ru.practicum.shareit.booking.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.dto.NewBookingAddRequest;
 import ru.practicum.shareit.booking.model.StateParam;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.IdempotencyStore;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import static ru.practicum.shareit.util.AppConstant.CUSTOM_REQUEST_HEADER_USER_ID;
+import static ru.practicum.shareit.util.AppConstant.CUSTOM_RESPONSE_HEADER_NEXT_CURSOR;
+import static ru.practicum.shareit.util.AppConstant.IDEMPOTENCY_KEY_HEADER;
 
 @Slf4j
 @RestController
@@ -20,16 +34,30 @@ import static ru.practicum.shareit.util.AppConstant.CUSTOM_REQUEST_HEADER_USER_I
 public class BookingController {
 
     private final BookingService bookingService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping
     public ResponseEntity<BookingDto> addBooking(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
+                                                 @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
                                                  @RequestBody NewBookingAddRequest newBookingAddRequest) {
-        log.info("BookingController: Создание бронирования: пользовательId={}, запрос={}", userId, newBookingAddRequest);
-        BookingDto bookingDto = bookingService.addBooking(userId, newBookingAddRequest);
+        log.info("BookingController: Создание бронирования: пользовательId={}, ключ={}, запрос={}", userId, idempotencyKey, newBookingAddRequest);
+        BookingDto bookingDto = idempotencyStore.execute("bookings", userId, idempotencyKey, newBookingAddRequest,
+                () -> bookingService.addBooking(userId, newBookingAddRequest));
         log.info("BookingController: Бронирование создано: bookingId={}", bookingDto.getId());
         return ResponseEntity.ok(bookingDto);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookingBatchResultDto>> addBookings(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
+                                                                   @RequestBody List<NewBookingAddRequest> newBookingAddRequests) {
+        log.info("BookingController: Пакетное создание бронирований: пользовательId={}, количество={}", userId, newBookingAddRequests.size());
+        List<BookingBatchResultDto> results = bookingService.addBookings(userId, newBookingAddRequests);
+        log.info("BookingController: Пакет бронирований обработан: пользовательId={}", userId);
+        return ResponseEntity.ok(results);
+    }
+
     @PatchMapping("/{bookingId}")
     public ResponseEntity<BookingDto> approvedBooking(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
                                                       @PathVariable(name = "bookingId") Long bookingId,
@@ -40,6 +68,16 @@ public class BookingController {
         return ResponseEntity.ok(bookingDto);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<BookingDecisionResultDto> approvedBookings(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
+                                                                     @RequestParam(name = "approved") Boolean approved,
+                                                                     @RequestBody List<Long> bookingIds) {
+        log.info("BookingController: Пакетное подтверждение бронирований: пользовательId={}, bookingIds={}, approved={}", userId, bookingIds, approved);
+        BookingDecisionResultDto result = bookingService.approvedBookings(userId, bookingIds, approved);
+        log.info("BookingController: Бронирования обновлены: статус={}, обновлено={}", result.getStatus(), result.getUpdated().size());
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<BookingDto> getBookingByBookerIdOrOwnerId(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
                                                                     @PathVariable(name = "bookingId") Long bookingId) {
@@ -51,20 +89,64 @@ public class BookingController {
 
     @GetMapping
     public ResponseEntity<List<BookingDto>> getUserBookings(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
-                                                            @RequestParam(name = "state", defaultValue = "ALL") String state) {
-        log.info("BookingController: Получение списка бронирований пользователя: пользовательId={}, state={}", userId, state);
-        List<BookingDto> bookingsDto = bookingService.getUserBookings(userId, StateParam.fromString(state));
-        log.info("BookingController: Найдено бронирований: {}", bookingsDto.size());
-        return ResponseEntity.ok(bookingsDto);
+                                                            @RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                            @RequestParam(name = "cursor", required = false) String cursor,
+                                                            @RequestParam(name = "size", defaultValue = "20") int size) {
+        log.info("BookingController: Получение списка бронирований пользователя: пользовательId={}, state={}, cursor={}, size={}", userId, state, cursor, size);
+        BookingPageDto bookingPageDto = bookingService.getUserBookings(userId, StateParam.fromString(state), cursor, size);
+        log.info("BookingController: Найдено бронирований: {}", bookingPageDto.getBookings().size());
+        return toResponse(bookingPageDto);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<List<BookingDto>> getBookingsForItemsByOwnerId(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
-                                                                         @RequestParam(name = "state", defaultValue = "ALL") StateParam state) {
-        log.info("BookingController: Получение бронирований для вещей владельца: владелецId={}, state={}", userId, state);
-        List<BookingDto> bookingsDto = bookingService.getBookingsForItemsByOwnerId(userId, state);
-        log.info("BookingController: Найдено бронирований для владельца {}: {}", userId, bookingsDto.size());
-        return ResponseEntity.ok(bookingsDto);
+                                                                         @RequestParam(name = "state", defaultValue = "ALL") StateParam state,
+                                                                         @RequestParam(name = "cursor", required = false) String cursor,
+                                                                         @RequestParam(name = "size", defaultValue = "20") int size) {
+        log.info("BookingController: Получение бронирований для вещей владельца: владелецId={}, state={}, cursor={}, size={}", userId, state, cursor, size);
+        BookingPageDto bookingPageDto = bookingService.getBookingsForItemsByOwnerId(userId, state, cursor, size);
+        log.info("BookingController: Найдено бронирований для владельца {}: {}", userId, bookingPageDto.getBookings().size());
+        return toResponse(bookingPageDto);
+    }
+
+    @GetMapping("/owner/summary")
+    public ResponseEntity<BookingSummaryDto> getOwnerBookingSummary(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId) {
+        log.info("BookingController: Получение счётчиков бронирований владельца: владелецId={}", userId);
+        BookingSummaryDto summary = bookingService.getOwnerBookingSummary(userId);
+        log.info("BookingController: Счётчики бронирований владельца {}: {}", userId, summary);
+        return ResponseEntity.ok(summary);
+    }
+
+    // NDJSON: по одному бронированию в строке, пишется в ответ по мере чтения из БД. Пользователь проверяется
+    // до начала потока: после него статус ответа уже не изменить
+    @GetMapping(path = "/owner/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOwnerBookings(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId) {
+        log.info("BookingController: Выгрузка бронирований владельца: владелецId={}", userId);
+        userService.getUserById(userId);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                bookingService.exportOwnerBookings(userId, bookingDto -> {
+                    try {
+                        generator.writeObject(bookingDto);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private ResponseEntity<List<BookingDto>> toResponse(BookingPageDto bookingPageDto) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (bookingPageDto.getNextCursor() != null) {
+            response.header(CUSTOM_RESPONSE_HEADER_NEXT_CURSOR, bookingPageDto.getNextCursor());
+        }
+        return response.body(bookingPageDto.getBookings());
     }
 
 }
\ No newline at end of file
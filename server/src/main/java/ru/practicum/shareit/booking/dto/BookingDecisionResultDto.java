@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingDecisionResultDto {
+
+    private BookingStatus status;
+
+    @Builder.Default
+    private List<Long> updated = new ArrayList<>();
+
+    @Builder.Default
+    private List<Long> skipped = new ArrayList<>();
+
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+public record BookingDtoProjection(Long id,
+                                   LocalDateTime start,
+                                   LocalDateTime end,
+                                   BookingStatus status,
+                                   Long bookerId,
+                                   String bookerName,
+                                   Long itemId,
+                                   String itemName) {
+}
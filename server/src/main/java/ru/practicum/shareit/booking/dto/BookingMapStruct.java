@@ -14,12 +14,27 @@ public interface BookingMapStruct {
 
     BookingDto toBookingDto(Booking booking);
 
+    @Mapping(target = "booker.id", source = "bookerId")
+    @Mapping(target = "booker.name", source = "bookerName")
+    @Mapping(target = "item.id", source = "itemId")
+    @Mapping(target = "item.name", source = "itemName")
+    BookingDto toBookingDto(BookingDtoProjection projection);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "start", source = "newBookingAddRequest.start")
     @Mapping(target = "end", source = "newBookingAddRequest.end")
     @Mapping(target = "booker", source = "userDto")
     @Mapping(target = "item", source = "itemDto")
+    @Mapping(target = "item.lastBookingId", ignore = true)
+    @Mapping(target = "item.lastBookingStart", ignore = true)
+    @Mapping(target = "item.nextBookingId", ignore = true)
+    @Mapping(target = "item.nextBookingStart", ignore = true)
     @Mapping(target = "status", constant = "WAITING")
+    @Mapping(target = "ownerId", ignore = true)
+    @Mapping(target = "phase", ignore = true)
+    @Mapping(target = "phaseUntil", ignore = true)
+    @Mapping(target = "created", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Booking newBooking(UserDto userDto, ItemDto itemDto, NewBookingAddRequest newBookingAddRequest);
 
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.dto;
+
+public record BookingStateCounts(Long all,
+                                 Long current,
+                                 Long past,
+                                 Long future,
+                                 Long waiting,
+                                 Long rejected,
+                                 Long archived) {
+}
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.booking.event;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Запись исходящего журнала событий бронирования; пишется в одной транзакции с изменением бронирования
+// и удаляется после того, как BookingEventDispatcher передал её всем слушателям
+@Setter
+@Getter
+@ToString
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "booking_events")
+public class BookingEvent {
+
+    @Id
+    // Идентификаторы берутся из последовательности блоками, поэтому события пачки вставляются JDBC-батчем
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_event_seq")
+    @SequenceGenerator(name = "booking_event_seq", sequenceName = "booking_events_seq", allocationSize = 50)
+    @Column(name = "event_id")
+    private Long id;
+
+    @Enumerated(value = EnumType.STRING)
+    @Column(name = "type")
+    private BookingEventType type;
+
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "booker_id")
+    private Long bookerId;
+
+    @Column(name = "created")
+    private LocalDateTime created;
+
+    // Число неудачных передач; событие, исчерпавшее лимит попыток, остаётся в журнале, но больше не вычитывается
+    @Column(name = "attempts")
+    private int attempts;
+
+}
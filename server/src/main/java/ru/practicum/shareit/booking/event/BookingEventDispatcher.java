@@ -0,0 +1,145 @@
+package ru.practicum.shareit.booking.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Вычитывает журнал booking_events пачками по batchSize и раздаёт их слушателям вне потока запроса.
+// За один проход обрабатывается не больше maxBatches пачек, чтобы накопившийся хвост не занимал планировщик
+// надолго. Метрики: shareit.bookings.events.dispatched — переданные события, shareit.bookings.events.lag —
+// возраст самого старого ещё не переданного события в секундах, shareit.bookings.events.batch — время пачки,
+// shareit.bookings.events.skipped — события, исчерпавшие maxAttempts попыток. Такие события остаются в журнале
+// для разбора, но больше не вычитываются и не задерживают следующие.
+@Slf4j
+@Component
+public class BookingEventDispatcher {
+
+    private final BookingEventRepository bookingEventRepository;
+    private final List<BookingEventListener> listeners;
+    private final int batchSize;
+    private final int maxBatches;
+    private final int maxAttempts;
+    private final Counter dispatchedCounter;
+    private final Counter skippedCounter;
+    private final Timer batchTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public BookingEventDispatcher(BookingEventRepository bookingEventRepository,
+                                  List<BookingEventListener> listeners,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${shareit.bookings.events.batch-size:200}") int batchSize,
+                                  @Value("${shareit.bookings.events.max-batches:50}") int maxBatches,
+                                  @Value("${shareit.bookings.events.max-attempts:5}") int maxAttempts) {
+        this.bookingEventRepository = bookingEventRepository;
+        this.listeners = listeners;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.maxAttempts = maxAttempts;
+        this.dispatchedCounter = Counter.builder("shareit.bookings.events.dispatched")
+                .description("События бронирований, переданные слушателям")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("shareit.bookings.events.skipped")
+                .description("События бронирований, пропущенные после исчерпания попыток")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("shareit.bookings.events.batch")
+                .description("Время передачи одной пачки событий слушателям")
+                .register(meterRegistry);
+        Gauge.builder("shareit.bookings.events.lag", lagSeconds, AtomicLong::get)
+                .description("Возраст самого старого непереданного события бронирования, с")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.events.poll-interval:PT1S}")
+    public void dispatch() {
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<BookingEvent> events = bookingEventRepository.findByAttemptsLessThanOrderByIdAsc(maxAttempts,
+                    Limit.of(batchSize));
+            lagSeconds.set(events.isEmpty()
+                    ? 0
+                    : Duration.between(events.getFirst().getCreated(), LocalDateTime.now()).toSeconds());
+            if (events.isEmpty()) {
+                return;
+            }
+            Set<Long> failed = dispatch(events);
+            List<Long> delivered = events.stream()
+                    .map(BookingEvent::getId)
+                    .filter(eventId -> !failed.contains(eventId))
+                    .toList();
+            if (!delivered.isEmpty()) {
+                bookingEventRepository.deleteByIds(delivered);
+                dispatchedCounter.increment(delivered.size());
+            }
+            // Непереданные события повторяются со следующим опросом, а не сразу в этом же проходе
+            if (!failed.isEmpty()) {
+                registerFailures(events, failed);
+                return;
+            }
+            if (events.size() < batchSize) {
+                lagSeconds.set(0);
+                return;
+            }
+        }
+    }
+
+    // Пачка передаётся слушателю целиком; если он падает, события пачки передаются ему по одному, чтобы одно
+    // сбойное событие не задерживало остальные. Возвращает события, которые не принял хотя бы один слушатель:
+    // при повторе они снова уйдут всем слушателям, поэтому слушатели обязаны быть идемпотентными
+    private Set<Long> dispatch(List<BookingEvent> events) {
+        long startedAt = System.nanoTime();
+        Set<Long> failed = new HashSet<>();
+        try {
+            for (BookingEventListener listener : listeners) {
+                try {
+                    listener.onBookingEvents(events);
+                } catch (RuntimeException e) {
+                    log.warn("BookingEventDispatcher: Пачка не обработана слушателем {}, события передаются по одному: первое событие={}, причина={}",
+                            listener.getClass().getSimpleName(), events.getFirst().getId(), e.getMessage());
+                    failed.addAll(dispatchOneByOne(listener, events));
+                }
+            }
+            return failed;
+        } finally {
+            batchTimer.record(Duration.ofNanos(System.nanoTime() - startedAt));
+        }
+    }
+
+    private Set<Long> dispatchOneByOne(BookingEventListener listener, List<BookingEvent> events) {
+        Set<Long> failed = new HashSet<>();
+        for (BookingEvent event : events) {
+            try {
+                listener.onBookingEvents(List.of(event));
+            } catch (RuntimeException e) {
+                log.warn("BookingEventDispatcher: Событие не обработано слушателем {}: eventId={}, попытка={}, причина={}",
+                        listener.getClass().getSimpleName(), event.getId(), event.getAttempts() + 1, e.getMessage());
+                failed.add(event.getId());
+            }
+        }
+        return failed;
+    }
+
+    private void registerFailures(List<BookingEvent> events, Set<Long> failed) {
+        bookingEventRepository.incrementAttempts(failed);
+        events.stream()
+                .filter(event -> failed.contains(event.getId()) && event.getAttempts() + 1 >= maxAttempts)
+                .forEach(event -> {
+                    log.error("BookingEventDispatcher: Событие пропущено после {} попыток и оставлено в журнале: eventId={}, тип={}, bookingId={}",
+                            maxAttempts, event.getId(), event.getType(), event.getBookingId());
+                    skippedCounter.increment();
+                });
+    }
+
+}
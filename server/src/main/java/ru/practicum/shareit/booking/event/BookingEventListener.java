@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.event;
+
+import java.util.List;
+
+// Получает события пачками в порядке записи. Доставка «хотя бы один раз»: если один из слушателей упал,
+// пачка остаётся в журнале и будет передана всем слушателям повторно, поэтому обработка должна быть идемпотентной
+public interface BookingEventListener {
+
+    void onBookingEvents(List<BookingEvent> events);
+
+}
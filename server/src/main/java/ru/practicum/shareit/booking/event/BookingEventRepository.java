@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.event;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookingEventRepository extends JpaRepository<BookingEvent, Long> {
+
+    List<BookingEvent> findByAttemptsLessThanOrderByIdAsc(int attempts, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BookingEvent e SET e.attempts = e.attempts + 1 WHERE e.id IN :eventIds")
+    int incrementAttempts(@Param("eventIds") Collection<Long> eventIds);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM BookingEvent e WHERE e.id IN :eventIds")
+    int deleteByIds(@Param("eventIds") Collection<Long> eventIds);
+
+}
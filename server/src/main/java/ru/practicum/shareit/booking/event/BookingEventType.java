@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.event;
+
+public enum BookingEventType {
+
+    CREATED,
+    APPROVED,
+    REJECTED,
+    EXPIRED
+
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class BookingOutbox {
+
+    private final BookingRepository bookingRepository;
+    private final BookingEventRepository bookingEventRepository;
+
+    @Transactional
+    public Booking save(Booking booking, BookingEventType type) {
+        Booking saved = bookingRepository.save(booking);
+        append(List.of(saved), type);
+        return saved;
+    }
+
+    @Transactional
+    public List<Booking> saveAll(List<Booking> bookings, BookingEventType type) {
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+        append(saved, type);
+        return saved;
+    }
+
+    // Только внутри транзакции, изменившей бронирования, иначе событие может разойтись с данными
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Collection<Booking> bookings, BookingEventType type) {
+        LocalDateTime now = LocalDateTime.now();
+        bookingEventRepository.saveAll(bookings.stream()
+                .map(booking -> BookingEvent.builder()
+                        .type(type)
+                        .bookingId(booking.getId())
+                        .itemId(booking.getItem().getId())
+                        .ownerId(booking.getOwnerId())
+                        .bookerId(booking.getBooker().getId())
+                        .created(now)
+                        .build())
+                .toList());
+    }
+
+}
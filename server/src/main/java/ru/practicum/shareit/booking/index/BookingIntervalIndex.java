@@ -0,0 +1,207 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ConflictException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+
+    public static final Set<BookingStatus> BLOCKING_STATUSES = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final ConcurrentMap<Long, ItemIntervals> intervalsByItem = new ConcurrentHashMap<>();
+
+    public Booking reserve(Booking booking, Supplier<Booking> saver) {
+        Long itemId = booking.getItem().getId();
+        ItemIntervals intervals = intervalsOf(itemId);
+        synchronized (intervals) {
+            if (intervals.overlaps(booking.getStart(), booking.getEnd())) {
+                log.warn("BookingIntervalIndex: Пересечение с существующим бронированием: itemId={}, start={}, end={}",
+                        itemId, booking.getStart(), booking.getEnd());
+                throw new ConflictException("вещь уже забронирована на указанный период");
+            }
+            Booking saved = saver.get();
+            intervals.add(Interval.of(saved));
+            return saved;
+        }
+    }
+
+    // Блокирует интервалы всех затронутых вещей в порядке id, отбрасывает заявки, пересекающиеся с уже
+    // существующими или с принятыми ранее заявками этого же пакета, и сохраняет оставшиеся одним вызовом saver.
+    public List<Booking> reserveAll(List<Booking> bookings, Consumer<Booking> onConflict,
+                                    UnaryOperator<List<Booking>> saver) {
+        Map<Long, ItemIntervals> intervalsById = new TreeMap<>();
+        bookings.forEach(booking -> intervalsById.computeIfAbsent(booking.getItem().getId(), this::intervalsOf));
+        return withLocks(List.copyOf(intervalsById.values()), 0, () -> {
+            Map<Long, List<Booking>> acceptedByItem = new HashMap<>();
+            List<Booking> accepted = new ArrayList<>();
+            for (Booking booking : bookings) {
+                Long itemId = booking.getItem().getId();
+                List<Booking> sameItem = acceptedByItem.computeIfAbsent(itemId, id -> new ArrayList<>());
+                if (intervalsById.get(itemId).overlaps(booking.getStart(), booking.getEnd())
+                        || sameItem.stream().anyMatch(other -> other.getStart().isBefore(booking.getEnd())
+                        && other.getEnd().isAfter(booking.getStart()))) {
+                    log.warn("BookingIntervalIndex: Пересечение в пакете бронирований: itemId={}, start={}, end={}",
+                            itemId, booking.getStart(), booking.getEnd());
+                    onConflict.accept(booking);
+                    continue;
+                }
+                sameItem.add(booking);
+                accepted.add(booking);
+            }
+            if (accepted.isEmpty()) {
+                return accepted;
+            }
+            List<Booking> saved = saver.apply(accepted);
+            saved.forEach(booking -> intervalsById.get(booking.getItem().getId()).add(Interval.of(booking)));
+            return saved;
+        });
+    }
+
+    public boolean hasOverlap(Long itemId, LocalDateTime start, LocalDateTime end) {
+        ItemIntervals intervals = intervalsOf(itemId);
+        synchronized (intervals) {
+            return intervals.overlaps(start, end);
+        }
+    }
+
+    public void update(Booking booking) {
+        ItemIntervals intervals = intervalsByItem.get(booking.getItem().getId());
+        if (intervals == null) {
+            return;
+        }
+        synchronized (intervals) {
+            // Загрузка ещё не начиналась: она прочитает из БД уже зафиксированное изменение
+            if (!intervals.loaded) {
+                return;
+            }
+            if (BLOCKING_STATUSES.contains(booking.getStatus())) {
+                intervals.add(Interval.of(booking));
+            } else {
+                intervals.remove(Interval.of(booking));
+            }
+        }
+    }
+
+    // Интервалы, закончившиеся до endedBefore, вместе со строками уходят в архив и больше ни с чем не сравниваются
+    public void prune(LocalDateTime endedBefore) {
+        int pruned = 0;
+        for (ItemIntervals intervals : intervalsByItem.values()) {
+            synchronized (intervals) {
+                pruned += intervals.removeEndedBefore(endedBefore);
+            }
+        }
+        log.info("BookingIntervalIndex: Удалены интервалы, завершённые до {}: {}", endedBefore, pruned);
+    }
+
+    public void evict(Long itemId) {
+        intervalsByItem.remove(itemId);
+    }
+
+    private <T> T withLocks(List<ItemIntervals> locks, int from, Supplier<T> action) {
+        if (from == locks.size()) {
+            return action.get();
+        }
+        synchronized (locks.get(from)) {
+            return withLocks(locks, from + 1, action);
+        }
+    }
+
+    // Пустая запись регистрируется до чтения БД, а чтение идёт под её монитором: update, пришедший во время
+    // загрузки, дождётся её конца и применится к загруженным интервалам, а не потеряется
+    private ItemIntervals intervalsOf(Long itemId) {
+        ItemIntervals intervals = intervalsByItem.computeIfAbsent(itemId, id -> new ItemIntervals());
+        synchronized (intervals) {
+            if (!intervals.loaded) {
+                bookingRepository.findByItemIdAndStatusIn(itemId, BLOCKING_STATUSES)
+                        .forEach(booking -> intervals.add(Interval.of(booking)));
+                intervals.loaded = true;
+                log.info("BookingIntervalIndex: Загружены интервалы бронирований: itemId={}, количество={}",
+                        itemId, intervals.size());
+            }
+        }
+        return intervals;
+    }
+
+    private record Interval(Long bookingId, LocalDateTime start, LocalDateTime end) {
+
+        private static final Comparator<Interval> BY_START = Comparator.comparing(Interval::start)
+                .thenComparing(Interval::bookingId);
+
+        static Interval of(Booking booking) {
+            return new Interval(booking.getId(), booking.getStart(), booking.getEnd());
+        }
+
+    }
+
+    // Загруженные из БД интервалы могут пересекаться между собой (например, две заявки WAITING), поэтому
+    // концы по началу не упорядочены. Интервалы, начинающиеся раньше конца периода, перебираются от поздних
+    // к ранним; перебор останавливается, когда даже самый длинный интервал вещи уже не дотянулся бы до start.
+    private static final class ItemIntervals {
+
+        private final NavigableSet<Interval> intervals = new TreeSet<>(Interval.BY_START);
+        private Duration longest = Duration.ZERO;
+        private boolean loaded;
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            for (Interval interval : intervals.headSet(new Interval(Long.MIN_VALUE, end, end), false).descendingSet()) {
+                if (interval.end().isAfter(start)) {
+                    return true;
+                }
+                if (!interval.start().plus(longest).isAfter(start)) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        void add(Interval interval) {
+            intervals.add(interval);
+            Duration duration = Duration.between(interval.start(), interval.end());
+            if (duration.compareTo(longest) > 0) {
+                longest = duration;
+            }
+        }
+
+        int removeEndedBefore(LocalDateTime endedBefore) {
+            int before = intervals.size();
+            intervals.removeIf(interval -> !interval.end().isAfter(endedBefore));
+            return before - intervals.size();
+        }
+
+        void remove(Interval interval) {
+            intervals.remove(interval);
+        }
+
+        int size() {
+            return intervals.size();
+        }
+
+    }
+
+}
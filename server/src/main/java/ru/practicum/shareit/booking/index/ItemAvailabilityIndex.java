@@ -0,0 +1,181 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Календарь занятости вещей: на каждый месяц одно слово long с битом на день и 12 слов с битом на час.
+// Бит ставится, если блокирующее бронирование задевает день/час хотя бы частично. Снять бит нельзя без
+// знания соседних бронирований, поэтому при отклонении бронирования календарь вещи перестраивается из БД.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemAvailabilityIndex {
+
+    private static final int HOURS_PER_DAY = 24;
+
+    private final BookingRepository bookingRepository;
+    private final ConcurrentMap<Long, ItemCalendar> calendarsByItem = new ConcurrentHashMap<>();
+
+    public void add(Booking booking) {
+        ItemCalendar calendar = calendarsByItem.get(booking.getItem().getId());
+        if (calendar == null) {
+            return;
+        }
+        synchronized (calendar) {
+            calendar.mark(booking.getStart(), booking.getEnd());
+        }
+    }
+
+    public void update(Booking booking) {
+        if (BookingIntervalIndex.BLOCKING_STATUSES.contains(booking.getStatus())) {
+            add(booking);
+        } else {
+            calendarsByItem.remove(booking.getItem().getId());
+        }
+    }
+
+    public void evict(Long itemId) {
+        calendarsByItem.remove(itemId);
+    }
+
+    // Бит i — занят ли день from + i; to включительно
+    public BitSet busyDays(Long itemId, LocalDate from, LocalDate to) {
+        ItemCalendar calendar = calendarOf(itemId);
+        synchronized (calendar) {
+            return calendar.busyDays(from, to);
+        }
+    }
+
+    // Бит i — занят ли час from + i часов; from и to округляются до часа, to не включается
+    public BitSet busyHours(Long itemId, LocalDateTime from, LocalDateTime to) {
+        ItemCalendar calendar = calendarOf(itemId);
+        synchronized (calendar) {
+            return calendar.busyHours(from.truncatedTo(ChronoUnit.HOURS), to.truncatedTo(ChronoUnit.HOURS));
+        }
+    }
+
+    private ItemCalendar calendarOf(Long itemId) {
+        ItemCalendar calendar = calendarsByItem.get(itemId);
+        if (calendar != null) {
+            return calendar;
+        }
+        ItemCalendar loaded = new ItemCalendar();
+        bookingRepository.findByItemIdAndStatusIn(itemId, BookingIntervalIndex.BLOCKING_STATUSES)
+                .forEach(booking -> loaded.mark(booking.getStart(), booking.getEnd()));
+        log.info("ItemAvailabilityIndex: Построен календарь занятости: itemId={}, месяцев={}", itemId, loaded.months.size());
+        ItemCalendar existing = calendarsByItem.putIfAbsent(itemId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static final class ItemCalendar {
+
+        private final Map<YearMonth, Month> months = new TreeMap<>();
+
+        // [start, end): конец, попавший ровно на границу часа или суток, следующий час/день не занимает
+        void mark(LocalDateTime start, LocalDateTime end) {
+            if (!end.isAfter(start)) {
+                return;
+            }
+            LocalDateTime last = end.minusNanos(1);
+            for (YearMonth month = YearMonth.from(start); !month.isAfter(YearMonth.from(last)); month = month.plusMonths(1)) {
+                LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+                LocalDateTime from = start.isAfter(monthStart) ? start : monthStart;
+                LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay().isAfter(last)
+                        ? last
+                        : month.atEndOfMonth().atTime(23, 59, 59);
+                Month bits = months.computeIfAbsent(month, key -> new Month());
+                bits.days |= rangeMask(from.getDayOfMonth() - 1, to.getDayOfMonth());
+                setRange(bits.hours, hourOfMonth(from), hourOfMonth(to) + 1);
+            }
+        }
+
+        BitSet busyDays(LocalDate from, LocalDate to) {
+            BitSet busy = new BitSet();
+            int offset = 0;
+            for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+                int firstDay = month.equals(YearMonth.from(from)) ? from.getDayOfMonth() - 1 : 0;
+                int lastDay = month.equals(YearMonth.from(to)) ? to.getDayOfMonth() : month.lengthOfMonth();
+                Month bits = months.get(month);
+                if (bits != null) {
+                    long window = (bits.days & rangeMask(firstDay, lastDay)) >>> firstDay;
+                    busy.or(shifted(BitSet.valueOf(new long[]{window}), offset));
+                }
+                offset += lastDay - firstDay;
+            }
+            return busy;
+        }
+
+        BitSet busyHours(LocalDateTime from, LocalDateTime to) {
+            BitSet busy = new BitSet();
+            int offset = 0;
+            for (LocalDateTime cursor = from; cursor.isBefore(to); ) {
+                YearMonth month = YearMonth.from(cursor);
+                LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+                LocalDateTime until = to.isBefore(monthEnd) ? to : monthEnd;
+                int firstHour = hourOfMonth(cursor);
+                int hours = (int) ChronoUnit.HOURS.between(cursor, until);
+                Month bits = months.get(month);
+                if (bits != null) {
+                    BitSet window = BitSet.valueOf(bits.hours).get(firstHour, firstHour + hours);
+                    busy.or(shifted(window, offset));
+                }
+                offset += hours;
+                cursor = until;
+            }
+            return busy;
+        }
+
+        private static int hourOfMonth(LocalDateTime time) {
+            return (time.getDayOfMonth() - 1) * HOURS_PER_DAY + time.getHour();
+        }
+
+        private static long rangeMask(int from, int toExclusive) {
+            long upper = toExclusive >= Long.SIZE ? -1L : (1L << toExclusive) - 1;
+            return upper & (-1L << from);
+        }
+
+        private static void setRange(long[] words, int from, int toExclusive) {
+            for (int word = from / Long.SIZE; word <= (toExclusive - 1) / Long.SIZE; word++) {
+                int wordStart = word * Long.SIZE;
+                words[word] |= rangeMask(Math.max(from - wordStart, 0), Math.min(toExclusive - wordStart, Long.SIZE));
+            }
+        }
+
+        // Сдвиг на offset бит вверх целыми словами: каждое слово делится между двумя соседними словами результата
+        private static BitSet shifted(BitSet bits, int offset) {
+            long[] words = bits.toLongArray();
+            int wordShift = offset / Long.SIZE;
+            int bitShift = offset % Long.SIZE;
+            long[] result = new long[words.length + wordShift + 1];
+            for (int i = 0; i < words.length; i++) {
+                result[i + wordShift] |= words[i] << bitShift;
+                if (bitShift != 0) {
+                    result[i + wordShift + 1] |= words[i] >>> (Long.SIZE - bitShift);
+                }
+            }
+            return BitSet.valueOf(result);
+        }
+
+    }
+
+    private static final class Month {
+
+        private long days;
+        private final long[] hours = new long[(31 * HOURS_PER_DAY + Long.SIZE - 1) / Long.SIZE];
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+
+// Завершённое бронирование, перенесённое BookingArchiver из bookings; только для чтения
+@Setter
+@Getter
+@ToString(exclude = {"booker", "item"})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "bookings_archive")
+public class ArchivedBooking {
+
+    @Id
+    @Column(name = "booking_id")
+    private Long id;
+
+    @Column(name = "start_date")
+    private LocalDateTime start;
+
+    @Column(name = "end_date")
+    private LocalDateTime end;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User booker;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Enumerated(value = EnumType.STRING)
+    @Column(name = "status")
+    private BookingStatus status;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+
+}
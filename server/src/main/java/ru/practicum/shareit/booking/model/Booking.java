@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class Booking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "bookings_seq", allocationSize = 50)
     @Column(name = "booking_id")
     private Long id;
 
@@ -36,8 +37,46 @@ public class Booking {
     @JoinColumn(name = "item_id")
     private Item item;
 
+    // Копия items.user_id, чтобы выборки владельца не соединяли bookings с items
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
     @Enumerated(value = EnumType.STRING)
     @Column(name = "status")
     private BookingStatus status;
 
+    // Фаза и момент её следующей смены меняются только пакетными UPDATE планировщика фаз,
+    // поэтому сохранение бронирования их не перезаписывает
+    @Enumerated(value = EnumType.STRING)
+    @Column(name = "phase", updatable = false)
+    private BookingPhase phase;
+
+    @Column(name = "phase_until", updatable = false)
+    private LocalDateTime phaseUntil;
+
+    @Column(name = "created", updatable = false)
+    private LocalDateTime created;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    @PrePersist
+    void fillDerivedColumns() {
+        if (created == null) {
+            created = LocalDateTime.now();
+        }
+        if (ownerId == null && item != null && item.getOwner() != null) {
+            ownerId = item.getOwner().getId();
+        }
+        if (phase == null) {
+            phase = BookingPhase.of(start, end, LocalDateTime.now());
+            phaseUntil = switch (phase) {
+                case FUTURE -> start;
+                case CURRENT -> end;
+                case PAST -> null;
+            };
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.booking.model;
+
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Map;
+
+// archived — позиция в bookings_archive, куда листание переходит после исчерпания bookings;
+// курсор архива без start/id указывает на его начало
+public record BookingCursor(LocalDateTime start, Long id, boolean archived) {
+
+    private static final String SEPARATOR = "_";
+    private static final String ARCHIVE_PREFIX = "archive" + SEPARATOR;
+
+    public BookingCursor(LocalDateTime start, Long id) {
+        this(start, id, false);
+    }
+
+    public static BookingCursor archiveHead() {
+        return new BookingCursor(null, null, true);
+    }
+
+    public static BookingCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            boolean archived = value.startsWith(ARCHIVE_PREFIX);
+            if (archived) {
+                value = value.substring(ARCHIVE_PREFIX.length());
+                if (value.isEmpty()) {
+                    return archiveHead();
+                }
+            }
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new BookingCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)), archived);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException("некорректный курсор постраничного вывода: " + token);
+        }
+    }
+
+    public boolean hasPosition() {
+        return start != null && id != null;
+    }
+
+    public String encode() {
+        String value = (archived ? ARCHIVE_PREFIX : "") + (hasPosition() ? start + SEPARATOR + id : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Map<String, Object> toKeys() {
+        return Map.of("start", start, "id", id);
+    }
+
+}
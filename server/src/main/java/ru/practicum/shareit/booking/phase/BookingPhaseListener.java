@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking.phase;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventListener;
+import ru.practicum.shareit.booking.event.BookingEventType;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.util.List;
+
+// Ставит переходы фаз новых бронирований в колесо вне потока запроса. Повторная доставка безопасна:
+// уже запланированный переход BookingPhaseScheduler второй раз не добавит
+@Component
+@RequiredArgsConstructor
+public class BookingPhaseListener implements BookingEventListener {
+
+    private final BookingRepository bookingRepository;
+    private final BookingPhaseScheduler bookingPhaseScheduler;
+
+    @Override
+    public void onBookingEvents(List<BookingEvent> events) {
+        List<Long> createdIds = events.stream()
+                .filter(event -> event.getType() == BookingEventType.CREATED)
+                .map(BookingEvent::getBookingId)
+                .toList();
+        if (createdIds.isEmpty()) {
+            return;
+        }
+        bookingRepository.findAllById(createdIds).forEach(bookingPhaseScheduler::schedule);
+    }
+
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking.phase;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// Переводит бронирования FUTURE -> CURRENT -> PAST в момент phase_until. Ближайшие переходы держатся
+// в колесе таймеров в памяти; раз в час колесо досыпается из БД, что заодно восстанавливает его после
+// рестарта. Сами переходы — условные пакетные UPDATE, поэтому повторное срабатывание безопасно.
+@Slf4j
+@Component
+public class BookingPhaseScheduler {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 60;
+    private static final int WHEEL_LEVELS = 3;
+    private static final Duration LOAD_HORIZON = Duration.ofHours(24);
+    private static final int UPDATE_BATCH_SIZE = 500;
+
+    private final BookingRepository bookingRepository;
+    private final Clock clock;
+    private final HierarchicalTimingWheel<BookingPhaseTransition> wheel;
+    private final Set<BookingPhaseTransition> pending = new HashSet<>();
+
+    @Autowired
+    public BookingPhaseScheduler(BookingRepository bookingRepository) {
+        this(bookingRepository, Clock.systemDefaultZone());
+    }
+
+    BookingPhaseScheduler(BookingRepository bookingRepository, Clock clock) {
+        this.bookingRepository = bookingRepository;
+        this.clock = clock;
+        this.wheel = new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, WHEEL_LEVELS, clock.millis());
+    }
+
+    public void schedule(Booking booking) {
+        schedule(List.of(new BookingPhaseTransition(booking.getId(), booking.getPhase(), booking.getPhaseUntil(),
+                booking.getEnd())));
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${shareit.bookings.phase-load-interval:PT1H}")
+    public void loadUpcoming() {
+        LocalDateTime until = LocalDateTime.now(clock).plus(LOAD_HORIZON);
+        List<BookingPhaseTransition> transitions = bookingRepository.findPhaseTransitionsBefore(until);
+        schedule(transitions);
+        log.debug("В колесо фаз загружено {} переходов до {}", transitions.size(), until);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.phase-tick-interval:PT1S}")
+    public void tick() {
+        List<BookingPhaseTransition> due;
+        synchronized (this) {
+            due = wheel.advance(clock.millis());
+            due.forEach(pending::remove);
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        List<BookingPhaseTransition> started = due.stream()
+                .filter(transition -> transition.phase() == BookingPhase.FUTURE)
+                .toList();
+        List<Long> finished = due.stream()
+                .filter(transition -> transition.phase() == BookingPhase.CURRENT)
+                .map(BookingPhaseTransition::bookingId)
+                .toList();
+        int startedCount = inBatches(started.stream().map(BookingPhaseTransition::bookingId).toList(),
+                bookingRepository::markStarted);
+        int finishedCount = inBatches(finished, bookingRepository::markFinished);
+        schedule(started.stream()
+                .map(transition -> new BookingPhaseTransition(transition.bookingId(), BookingPhase.CURRENT,
+                        transition.end(), transition.end()))
+                .toList());
+        log.debug("Фазы бронирований: начато {}, завершено {}", startedCount, finishedCount);
+    }
+
+    private synchronized void schedule(List<BookingPhaseTransition> transitions) {
+        for (BookingPhaseTransition transition : transitions) {
+            if (transition.phaseUntil() == null || pending.contains(transition)) {
+                continue;
+            }
+            long deadline = transition.phaseUntil().atZone(clock.getZone()).toInstant().toEpochMilli();
+            if (wheel.add(deadline, transition)) {
+                pending.add(transition);
+            }
+        }
+    }
+
+    private static int inBatches(List<Long> ids, Function<List<Long>, Integer> update) {
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += UPDATE_BATCH_SIZE) {
+            updated += update.apply(ids.subList(from, Math.min(from + UPDATE_BATCH_SIZE, ids.size())));
+        }
+        return updated;
+    }
+
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.phase;
+
+import ru.practicum.shareit.booking.model.BookingPhase;
+
+import java.time.LocalDateTime;
+
+// Бронирование находится в фазе phase до момента phaseUntil; end нужен, чтобы после начала
+// бронирования сразу поставить в колесо переход в PAST без повторного чтения строки
+public record BookingPhaseTransition(Long bookingId, BookingPhase phase, LocalDateTime phaseUntil,
+                                     LocalDateTime end) {
+}
@@ -0,0 +1,125 @@
+package ru.practicum.shareit.booking.phase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Иерархическое колесо таймеров. Нижний уровень делит время на тики по tickMillis, тик каждого следующего
+// уровня равен полному обороту предыдущего. Когда наступает тик корзины верхнего уровня, её записи
+// перекладываются вниз; запись нижнего уровня срабатывает, когда её тик целиком прошёл.
+final class HierarchicalTimingWheel<T> {
+
+    private final Level<T>[] levels;
+    private final List<T> expired = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        levels = new Level[levelCount];
+        long levelTick = tickMillis;
+        for (int i = 0; i < levelCount; i++) {
+            levels[i] = new Level<>(levelTick, wheelSize, startMillis);
+            levelTick *= wheelSize;
+        }
+    }
+
+    // false — срок дальше горизонта колеса, запись не принята
+    boolean add(long deadlineMillis, T value) {
+        if (deadlineMillis < levels[0].currentTime) {
+            expired.add(value);
+            return true;
+        }
+        for (Level<T> level : levels) {
+            if (deadlineMillis < level.currentTime + level.interval) {
+                level.add(deadlineMillis, value);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<T> advance(long nowMillis) {
+        for (Level<T> level : levels) {
+            level.advanceClock(nowMillis);
+        }
+        for (int i = levels.length - 1; i > 0; i--) {
+            levels[i].drain(levels[i].currentTime, this::add);
+        }
+        levels[0].drain(levels[0].currentTime - 1, (deadline, value) -> expired.add(value));
+        List<T> result = new ArrayList<>(expired);
+        expired.clear();
+        return result;
+    }
+
+    long horizonMillis() {
+        Level<T> top = levels[levels.length - 1];
+        return top.currentTime + top.interval;
+    }
+
+    private interface Sink<T> {
+
+        void accept(long deadlineMillis, T value);
+
+    }
+
+    private static final class Level<T> {
+
+        private final long tickMillis;
+        private final long interval;
+        private final Bucket<T>[] buckets;
+        private long currentTime;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.interval = tickMillis * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+            this.currentTime = startMillis - startMillis % tickMillis;
+        }
+
+        void add(long deadlineMillis, T value) {
+            long virtualTick = deadlineMillis / tickMillis;
+            Bucket<T> bucket = buckets[(int) (virtualTick % buckets.length)];
+            bucket.expiration = virtualTick * tickMillis;
+            bucket.deadlines.add(deadlineMillis);
+            bucket.values.add(value);
+        }
+
+        void advanceClock(long nowMillis) {
+            if (nowMillis >= currentTime + tickMillis) {
+                currentTime = nowMillis - nowMillis % tickMillis;
+            }
+        }
+
+        void drain(long expiredUpTo, Sink<T> sink) {
+            for (Bucket<T> bucket : buckets) {
+                if (bucket.expiration < 0 || bucket.expiration > expiredUpTo) {
+                    continue;
+                }
+                List<Long> deadlines = new ArrayList<>(bucket.deadlines);
+                List<T> values = new ArrayList<>(bucket.values);
+                bucket.clear();
+                for (int i = 0; i < values.size(); i++) {
+                    sink.accept(deadlines.get(i), values.get(i));
+                }
+            }
+        }
+
+    }
+
+    private static final class Bucket<T> {
+
+        private long expiration = -1;
+        private final List<Long> deadlines = new ArrayList<>();
+        private final List<T> values = new ArrayList<>();
+
+        void clear() {
+            expiration = -1;
+            deadlines.clear();
+            values.clear();
+        }
+
+    }
+
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingDtoProjection;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+
+public interface BookingProjectionRepository {
+
+    Window<BookingDtoProjection> findProjectedBy(Specification<Booking> specification, int size);
+
+    Window<BookingDtoProjection> findArchivedProjectedBy(Specification<ArchivedBooking> specification, int size);
+
+}
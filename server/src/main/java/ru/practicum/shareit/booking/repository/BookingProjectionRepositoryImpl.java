@@ -0,0 +1,59 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingDtoProjection;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class BookingProjectionRepositoryImpl implements BookingProjectionRepository {
+
+    private final EntityManager entityManager;
+
+    // Выбирает только колонки BookingDto одним запросом с join на booker и item, без загрузки сущностей
+    @Override
+    public Window<BookingDtoProjection> findProjectedBy(Specification<Booking> specification, int size) {
+        return findProjectedBy(Booking.class, specification, size);
+    }
+
+    @Override
+    public Window<BookingDtoProjection> findArchivedProjectedBy(Specification<ArchivedBooking> specification, int size) {
+        return findProjectedBy(ArchivedBooking.class, specification, size);
+    }
+
+    private <T> Window<BookingDtoProjection> findProjectedBy(Class<T> type, Specification<T> specification, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingDtoProjection> query = cb.createQuery(BookingDtoProjection.class);
+        Root<T> root = query.from(type);
+        query.select(cb.construct(BookingDtoProjection.class,
+                        root.get("id"),
+                        root.get("start"),
+                        root.get("end"),
+                        root.get("status"),
+                        root.get("booker").get("id"),
+                        root.get("booker").get("name"),
+                        root.get("item").get("id"),
+                        root.get("item").get("name")))
+                .where(specification.toPredicate(root, query, cb))
+                .orderBy(cb.desc(root.get("start")), cb.desc(root.get("id")));
+
+        List<BookingDtoProjection> rows = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > size;
+        List<BookingDtoProjection> content = hasNext ? rows.subList(0, size) : rows;
+        return Window.from(content, index -> ScrollPosition.forward(new BookingCursor(content.get(index).start(),
+                content.get(index).id()).toKeys()), hasNext);
+    }
+
+}
@@ -1,19 +1,32 @@
 package ru.practicum.shareit.booking.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDtoProjection;
+import ru.practicum.shareit.booking.dto.BookingStateCounts;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.phase.BookingPhaseTransition;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingProjectionRepository {
 
     @Query("SELECT b FROM Booking b " +
             "LEFT JOIN FETCH b.booker " +
@@ -23,28 +36,134 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     Optional<Booking> findFirstByBookerAndItemAndEndBeforeOrderByEndDesc(User booker, Item item, LocalDateTime now);
 
-    Optional<Booking> findFirstByItemAndStartAfterOrderByStartAsc(Item item, LocalDateTime start);
+    Optional<Booking> findFirstByItemIdAndStatusInAndStartAfterOrderByStartAsc(Long itemId,
+                                                                              Collection<BookingStatus> statuses,
+                                                                              LocalDateTime start);
 
-    Optional<Booking> findFirstByItemAndEndAfterOrderByEndDesc(Item item, LocalDateTime end);
+    Optional<Booking> findFirstByItemIdAndStatusInAndStartLessThanEqualOrderByStartDesc(Long itemId,
+                                                                                       Collection<BookingStatus> statuses,
+                                                                                       LocalDateTime start);
 
-    List<Booking> findByBookerId(Long userId);
+    List<Booking> findByItemIdAndStatusIn(Long itemId, Collection<BookingStatus> statuses);
 
-    List<Booking> findByBookerIdAndStartBeforeAndEndAfter(Long userId, LocalDateTime start, LocalDateTime end);
-
-    List<Booking> findByBookerIdAndEndBefore(Long userId, LocalDateTime end);
-
-    List<Booking> findByBookerIdAndStartAfter(Long userId, LocalDateTime start);
-
-    List<Booking> findByBookerIdAndStatus(Long userId, BookingStatus status);
-
-    List<Booking> findByItemOwnerIdOrderByStartDesc(Long ownerId);
-
-    List<Booking> findByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(Long ownerId, LocalDateTime start, LocalDateTime end);
-
-    List<Booking> findByItemOwnerIdAndEndBeforeOrderByStartDesc(Long ownerId, LocalDateTime end);
-
-    List<Booking> findByItemOwnerIdAndStartAfterOrderByStartDesc(Long ownerId, LocalDateTime start);
-
-    List<Booking> findByItemOwnerIdAndStatusOrderByStartDesc(Long ownerId, BookingStatus status);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.id IN :bookingIds " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING " +
+            "AND b.ownerId = :ownerId")
+    List<Booking> findWaitingByIdsAndOwnerForUpdate(@Param("bookingIds") Collection<Long> bookingIds,
+                                                    @Param("ownerId") Long ownerId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1 " +
+            "WHERE b.id IN :bookingIds " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING " +
+            "AND b.ownerId = :ownerId")
+    int updateWaitingStatus(@Param("bookingIds") Collection<Long> bookingIds,
+                            @Param("ownerId") Long ownerId,
+                            @Param("status") BookingStatus status);
+
+    @Query(value = "SELECT booking_id FROM bookings " +
+            "WHERE status = 'WAITING' AND (created < :createdBefore OR start_date <= :now) " +
+            "ORDER BY created " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Long> findStaleWaitingIds(@Param("createdBefore") LocalDateTime createdBefore,
+                                   @Param("now") LocalDateTime now,
+                                   @Param("limit") int limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.id IN :bookingIds " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING")
+    List<Booking> findWaitingByIdsForUpdate(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = ru.practicum.shareit.booking.model.BookingStatus.CANCELED, " +
+            "b.version = b.version + 1 " +
+            "WHERE b.id IN :bookingIds " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING")
+    int cancelWaiting(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Query("SELECT new ru.practicum.shareit.booking.phase.BookingPhaseTransition(b.id, b.phase, b.phaseUntil, b.end) " +
+            "FROM Booking b " +
+            "WHERE b.phaseUntil < :until")
+    List<BookingPhaseTransition> findPhaseTransitionsBefore(@Param("until") LocalDateTime until);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = ru.practicum.shareit.booking.model.BookingPhase.CURRENT, " +
+            "b.phaseUntil = b.end " +
+            "WHERE b.id IN :bookingIds " +
+            "AND b.phase = ru.practicum.shareit.booking.model.BookingPhase.FUTURE")
+    int markStarted(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = ru.practicum.shareit.booking.model.BookingPhase.PAST, " +
+            "b.phaseUntil = NULL " +
+            "WHERE b.id IN :bookingIds " +
+            "AND b.phase = ru.practicum.shareit.booking.model.BookingPhase.CURRENT")
+    int markFinished(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Query(value = "SELECT booking_id FROM bookings " +
+            "WHERE end_date < :before AND phase = 'PAST' " +
+            "ORDER BY end_date " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Long> findArchivableIds(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO bookings_archive " +
+            "(booking_id, start_date, end_date, user_id, item_id, owner_id, status, archived_at) " +
+            "SELECT booking_id, start_date, end_date, user_id, item_id, owner_id, status, CURRENT_TIMESTAMP " +
+            "FROM bookings " +
+            "WHERE booking_id IN (:bookingIds)", nativeQuery = true)
+    int copyToArchive(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Booking b WHERE b.id IN :bookingIds")
+    int deleteByIds(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Query("SELECT COUNT(a) > 0 FROM ArchivedBooking a " +
+            "WHERE a.booker.id = :bookerId AND a.item.id = :itemId AND a.end < :now")
+    boolean existsArchivedByBookerAndItemEndedBefore(@Param("bookerId") Long bookerId,
+                                                     @Param("itemId") Long itemId,
+                                                     @Param("now") LocalDateTime now);
+
+    // Все счётчики вкладок владельца одним проходом по индексу (owner_id, status, phase); COUNT(*), а не COUNT(b),
+    // потому что COUNT(b) превращается в count(booking_id), а booking_id в индексе нет
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStateCounts(" +
+            "COUNT(*), " +
+            "COUNT(*) FILTER (WHERE b.phase = ru.practicum.shareit.booking.model.BookingPhase.CURRENT), " +
+            "COUNT(*) FILTER (WHERE b.phase = ru.practicum.shareit.booking.model.BookingPhase.PAST), " +
+            "COUNT(*) FILTER (WHERE b.phase = ru.practicum.shareit.booking.model.BookingPhase.FUTURE), " +
+            "COUNT(*) FILTER (WHERE b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING), " +
+            "COUNT(*) FILTER (WHERE b.status = ru.practicum.shareit.booking.model.BookingStatus.REJECTED), " +
+            "(SELECT COUNT(*) FROM ArchivedBooking a WHERE a.ownerId = :ownerId)) " +
+            "FROM Booking b " +
+            "WHERE b.ownerId = :ownerId")
+    BookingStateCounts countStatesByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Потоковая выгрузка: строки читаются курсором порциями по fetch size, сущности не создаются
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingDtoProjection(" +
+            "b.id, b.start, b.end, b.status, b.booker.id, b.booker.name, b.item.id, b.item.name) " +
+            "FROM Booking b " +
+            "WHERE b.ownerId = :ownerId " +
+            "ORDER BY b.start DESC, b.id DESC")
+    Stream<BookingDtoProjection> streamProjectedByOwnerId(@Param("ownerId") Long ownerId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingDtoProjection(" +
+            "a.id, a.start, a.end, a.status, a.booker.id, a.booker.name, a.item.id, a.item.name) " +
+            "FROM ArchivedBooking a " +
+            "WHERE a.ownerId = :ownerId " +
+            "ORDER BY a.start DESC, a.id DESC")
+    Stream<BookingDtoProjection> streamArchivedProjectedByOwnerId(@Param("ownerId") Long ownerId);
 
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.StateParam;
+
+@UtilityClass
+public class BookingSpecifications {
+
+    public static <T> Specification<T> byBooker(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("booker").get("id"), userId);
+    }
+
+    public static <T> Specification<T> byItemOwner(Long ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("ownerId"), ownerId);
+    }
+
+    // Текущая фаза хранится в самой строке и сдвигается BookingPhaseScheduler, поэтому состояния
+    // CURRENT/PAST/FUTURE — равенство по phase, а не диапазоны относительно now()
+    public static Specification<Booking> inState(StateParam state) {
+        return switch (state) {
+            case CURRENT -> hasPhase(BookingPhase.CURRENT);
+            case PAST -> hasPhase(BookingPhase.PAST);
+            case FUTURE -> hasPhase(BookingPhase.FUTURE);
+            case WAITING -> hasStatus(BookingStatus.WAITING);
+            case REJECTED -> hasStatus(BookingStatus.REJECTED);
+            default -> (root, query, cb) -> cb.conjunction();
+        };
+    }
+
+    // Keyset-условие для страницы после курсора; нестрогая граница по start_date дублируется,
+    // чтобы индекс по (…, start_date DESC, booking_id DESC) использовался как диапазон, а не фильтр
+    public static <T> Specification<T> after(BookingCursor cursor) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("start"), cursor.start()),
+                cb.or(cb.lessThan(root.get("start"), cursor.start()),
+                        cb.and(cb.equal(root.get("start"), cursor.start()),
+                                cb.lessThan(root.get("id"), cursor.id()))));
+    }
+
+    public static Specification<Booking> hasPhase(BookingPhase phase) {
+        return (root, query, cb) -> cb.equal(root.get("phase"), phase);
+    }
+
+    public static Specification<Booking> hasStatus(BookingStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Переносит бронирования, завершившиеся раньше горизонта, в bookings_archive порциями по batchSize строк.
+// Каждая порция — отдельная транзакция; между порциями задача спит так, чтобы не превышать maxRowsPerSecond.
+// Вслед за строками из индекса интервалов убираются интервалы, завершившиеся раньше того же горизонта.
+@Slf4j
+@Component
+public class BookingArchiver {
+
+    private final BookingService bookingService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final Duration horizon;
+    private final int batchSize;
+    private final int maxRowsPerSecond;
+
+    public BookingArchiver(BookingService bookingService,
+                           BookingIntervalIndex bookingIntervalIndex,
+                           @Value("${shareit.bookings.archive.horizon:P180D}") Duration horizon,
+                           @Value("${shareit.bookings.archive.batch-size:500}") int batchSize,
+                           @Value("${shareit.bookings.archive.max-rows-per-second:2000}") int maxRowsPerSecond) {
+        this.bookingService = bookingService;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.archive.interval:PT1H}",
+            initialDelayString = "${shareit.bookings.archive.interval:PT1H}")
+    public void archive() {
+        LocalDateTime endedBefore = LocalDateTime.now().minus(horizon);
+        long total = 0;
+        int archived;
+        do {
+            long startedAt = System.nanoTime();
+            archived = bookingService.archiveFinishedBookings(endedBefore, batchSize);
+            total += archived;
+            if (!throttle(archived, System.nanoTime() - startedAt)) {
+                break;
+            }
+        } while (archived == batchSize);
+        bookingIntervalIndex.prune(endedBefore);
+        log.info("BookingArchiver: В архив перенесено бронирований, завершённых до {}: {}", endedBefore, total);
+    }
+
+    private boolean throttle(int rows, long elapsedNanos) {
+        long budgetNanos = Duration.ofSeconds(1).toNanos() * rows / maxRowsPerSecond;
+        long pauseNanos = budgetNanos - elapsedNanos;
+        if (pauseNanos <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(pauseNanos));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
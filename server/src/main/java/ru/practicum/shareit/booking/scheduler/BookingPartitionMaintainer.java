@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Заранее создаёт месячные секции bookings в PostgreSQL (см. create_booking_partitions в schema-postgresql.sql);
+// в H2 таблица не секционирована, и задача выключена
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.bookings.partition-maintenance.enabled", havingValue = "true")
+public class BookingPartitionMaintainer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+
+    public BookingPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                      @Value("${shareit.bookings.partition-maintenance.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${shareit.bookings.partition-maintenance.interval:PT12H}")
+    public void createUpcomingPartitions() {
+        Integer created = jdbcTemplate.queryForObject("SELECT create_booking_partitions(?)", Integer.class, monthsAhead);
+        log.info("BookingPartitionMaintainer: Создано секций бронирований: {}", created);
+    }
+
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.booking.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Отменяет бронирования в статусе WAITING, созданные раньше ttl или уже начавшиеся, порциями по batchSize
+// строк — каждая порция отдельной транзакцией. Счётчик shareit.bookings.expired показывает, сколько отменено.
+@Slf4j
+@Component
+public class WaitingBookingExpirer {
+
+    private final BookingService bookingService;
+    private final Duration ttl;
+    private final int batchSize;
+    private final Counter expiredCounter;
+    private final Timer runTimer;
+
+    public WaitingBookingExpirer(BookingService bookingService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${shareit.bookings.waiting-expiry.ttl:P3D}") Duration ttl,
+                                 @Value("${shareit.bookings.waiting-expiry.batch-size:500}") int batchSize) {
+        this.bookingService = bookingService;
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.expiredCounter = Counter.builder("shareit.bookings.expired")
+                .description("Бронирования WAITING, отменённые по истечении срока ожидания решения")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("shareit.bookings.expiry.duration")
+                .description("Длительность прохода отмены просроченных бронирований")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.waiting-expiry.interval:PT5M}",
+            initialDelayString = "${shareit.bookings.waiting-expiry.interval:PT5M}")
+    public void expire() {
+        runTimer.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime createdBefore = now.minus(ttl);
+            long total = 0;
+            int expired;
+            do {
+                expired = bookingService.expireStaleWaitingBookings(createdBefore, now, batchSize);
+                expiredCounter.increment(expired);
+                total += expired;
+            } while (expired == batchSize);
+            if (total > 0) {
+                log.info("WaitingBookingExpirer: Отменено бронирований без решения владельца: {}", total);
+            }
+        });
+    }
+
+}
@@ -1,21 +1,39 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.dto.NewBookingAddRequest;
 import ru.practicum.shareit.booking.model.StateParam;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
 
     BookingDto addBooking(Long userId, NewBookingAddRequest newBookingAddRequest);
 
+    List<BookingBatchResultDto> addBookings(Long userId, List<NewBookingAddRequest> newBookingAddRequests);
+
     BookingDto approvedBooking(Long userId, Long bookingId, Boolean approved);
 
+    BookingDecisionResultDto approvedBookings(Long userId, List<Long> bookingIds, Boolean approved);
+
     BookingDto getBookingByBookerIdOrOwnerId(Long userId, Long bookingId);
 
-    List<BookingDto> getUserBookings(Long userId, StateParam state);
+    BookingPageDto getUserBookings(Long userId, StateParam state, String cursor, int size);
+
+    BookingPageDto getBookingsForItemsByOwnerId(Long userId, StateParam state, String cursor, int size);
+
+    BookingSummaryDto getOwnerBookingSummary(Long userId);
+
+    void exportOwnerBookings(Long userId, Consumer<BookingDto> consumer);
+
+    int archiveFinishedBookings(LocalDateTime endedBefore, int limit);
 
-    List<BookingDto> getBookingsForItemsByOwnerId(Long userId, StateParam state);
+    int expireStaleWaitingBookings(LocalDateTime createdBefore, LocalDateTime now, int limit);
 
 }
\ No newline at end of file
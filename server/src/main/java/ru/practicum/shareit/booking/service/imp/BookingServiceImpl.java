@@ -2,17 +2,38 @@ package ru.practicum.shareit.booking.service.imp;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoProjection;
 import ru.practicum.shareit.booking.dto.BookingMapStruct;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingStateCounts;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.dto.NewBookingAddRequest;
+import ru.practicum.shareit.booking.event.BookingEventType;
+import ru.practicum.shareit.booking.event.BookingOutbox;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemAvailabilityIndex;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.model.StateParam;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSpecifications;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.AccessException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemMapStruct;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
@@ -21,16 +42,31 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.util.AppValidation;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
 
+    // SQLState exclusion_violation: пересечение периодов, остальные нарушения целостности не про занятость вещи
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
     private final BookingRepository bookingRepository;
+    private final BookingOutbox bookingOutbox;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemAvailabilityIndex itemAvailabilityIndex;
     private final UserService userService;
     private final ItemService itemService;
     private final BookingMapStruct bookingMapStruct;
@@ -50,11 +86,90 @@ public class BookingServiceImpl implements BookingService {
         Booking booking = bookingMapStruct.newBooking(userMapStruct.toUserDto(user),
                 itemMapStruct.toItemDto(item),
                 newBookingAddRequest);
-        Booking newBooking = bookingRepository.save(booking);
+        Booking newBooking;
+        try {
+            newBooking = bookingIntervalIndex.reserve(booking,
+                    () -> bookingOutbox.save(booking, BookingEventType.CREATED));
+        } catch (DataIntegrityViolationException e) {
+            if (!isPeriodConflict(e)) {
+                throw e;
+            }
+            log.warn("BookingService: Бронирование отклонено ограничением БД: itemId={}, причина={}",
+                    item.getId(), e.getMostSpecificCause().getMessage());
+            throw new ConflictException("вещь уже забронирована на указанный период");
+        }
+        itemAvailabilityIndex.add(newBooking);
         log.info("BookingService: Бронирование сохранено: bookingId={}", newBooking.getId());
         return bookingMapStruct.toBookingDto(newBooking);
     }
 
+    @Override
+    public List<BookingBatchResultDto> addBookings(Long userId, List<NewBookingAddRequest> newBookingAddRequests) {
+        log.info("BookingService: Пакетное создание бронирований: пользовательId={}, количество={}", userId, newBookingAddRequests.size());
+        User user = userService.getUserById(userId);
+        Map<Long, Item> items = itemService.getItemsByIds(newBookingAddRequests.stream()
+                        .map(NewBookingAddRequest::getItemId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        BookingBatchResultDto[] results = new BookingBatchResultDto[newBookingAddRequests.size()];
+        Map<Booking, Integer> positions = new IdentityHashMap<>();
+        List<Booking> candidates = new ArrayList<>();
+        for (int i = 0; i < newBookingAddRequests.size(); i++) {
+            NewBookingAddRequest newBookingAddRequest = newBookingAddRequests.get(i);
+            try {
+                AppValidation.bookingValidator(newBookingAddRequest);
+            } catch (ValidationException e) {
+                results[i] = rejectedBooking(i, e.getMessage());
+                continue;
+            }
+            Item item = items.get(newBookingAddRequest.getItemId());
+            if (item == null) {
+                results[i] = rejectedBooking(i, "вещь c id = " + newBookingAddRequest.getItemId() + " не найдена");
+                continue;
+            }
+            if (!item.getAvailable()) {
+                results[i] = rejectedBooking(i, "вещь занята");
+                continue;
+            }
+            Booking booking = Booking.builder()
+                    .booker(user)
+                    .item(item)
+                    .start(newBookingAddRequest.getStart())
+                    .end(newBookingAddRequest.getEnd())
+                    .status(BookingStatus.WAITING)
+                    .build();
+            positions.put(booking, i);
+            candidates.add(booking);
+        }
+
+        try {
+            List<Booking> saved = bookingIntervalIndex.reserveAll(candidates,
+                    booking -> results[positions.get(booking)] = rejectedBooking(positions.get(booking),
+                            "вещь уже забронирована на указанный период"),
+                    accepted -> bookingOutbox.saveAll(accepted, BookingEventType.CREATED));
+            saved.forEach(booking -> results[positions.get(booking)] = BookingBatchResultDto.builder()
+                    .index(positions.get(booking))
+                    .bookingId(booking.getId())
+                    .status(booking.getStatus())
+                    .build());
+            saved.forEach(itemAvailabilityIndex::add);
+        } catch (DataIntegrityViolationException e) {
+            if (!isPeriodConflict(e)) {
+                throw e;
+            }
+            log.warn("BookingService: Пакет бронирований отклонён ограничением БД: причина={}",
+                    e.getMostSpecificCause().getMessage());
+            positions.values().stream()
+                    .filter(i -> results[i] == null)
+                    .forEach(i -> results[i] = rejectedBooking(i, "вещь уже забронирована на указанный период"));
+        }
+        log.info("BookingService: Пакет бронирований обработан: пользовательId={}, создано={}", userId,
+                Arrays.stream(results).filter(result -> result.getBookingId() != null).count());
+        return List.of(results);
+    }
+
     @Override
     public BookingDto approvedBooking(Long userId, Long bookingId, Boolean approved) {
         log.info("BookingService: Подтверждение бронирования: пользовательId={}, bookingId={}, approved={}", userId, bookingId, approved);
@@ -64,12 +179,51 @@ public class BookingServiceImpl implements BookingService {
             log.warn("BookingService: Доступ запрещён. Пользователь {} не является владельцем вещи bookingId={}", userId, bookingId);
             throw new AccessException("подтверждать бронирование может только владелец вещи");
         }
+        if (booking.getStatus() != BookingStatus.WAITING) {
+            log.warn("BookingService: Решение по бронированию уже принято: bookingId={}, статус={}", bookingId, booking.getStatus());
+            throw new ConflictException("решение по бронированию уже принято, текущий статус " + booking.getStatus());
+        }
+        // Сохранение сравнивает версию с прочитанной, поэтому параллельное решение по тому же бронированию
+        // завершится ObjectOptimisticLockingFailureException, а не перезапишет статус
         booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
-        Booking saved = bookingRepository.save(booking);
+        Booking saved = bookingOutbox.save(booking, approved ? BookingEventType.APPROVED : BookingEventType.REJECTED);
+        bookingIntervalIndex.update(saved);
+        itemAvailabilityIndex.update(saved);
         log.info("BookingService: Статус бронирования обновлён: bookingId={}, статус={}", saved.getId(), saved.getStatus());
         return bookingMapStruct.toBookingDto(saved);
     }
 
+    // Строки блокируются выборкой, чтобы точно знать, какие id изменит следующий за ней условный UPDATE
+    @Override
+    @Transactional
+    public BookingDecisionResultDto approvedBookings(Long userId, List<Long> bookingIds, Boolean approved) {
+        log.info("BookingService: Пакетное подтверждение бронирований: пользовательId={}, bookingIds={}, approved={}", userId, bookingIds, approved);
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        List<Booking> waiting = bookingRepository.findWaitingByIdsAndOwnerForUpdate(bookingIds, userId);
+        List<Long> updated = waiting.stream()
+                .map(Booking::getId)
+                .toList();
+        if (!updated.isEmpty()) {
+            bookingRepository.updateWaitingStatus(updated, userId, status);
+            bookingOutbox.append(waiting, approved ? BookingEventType.APPROVED : BookingEventType.REJECTED);
+            waiting.forEach(booking -> booking.setStatus(status));
+            afterCommit(() -> waiting.forEach(booking -> {
+                bookingIntervalIndex.update(booking);
+                itemAvailabilityIndex.update(booking);
+            }));
+        }
+        List<Long> skipped = bookingIds.stream()
+                .filter(bookingId -> !updated.contains(bookingId))
+                .distinct()
+                .toList();
+        log.info("BookingService: Статус бронирований обновлён: статус={}, обновлено={}, пропущено={}", status, updated, skipped);
+        return BookingDecisionResultDto.builder()
+                .status(status)
+                .updated(updated)
+                .skipped(skipped)
+                .build();
+    }
+
     @Override
     public BookingDto getBookingByBookerIdOrOwnerId(Long userId, Long bookingId) {
         log.info("BookingService: Получение бронирования: пользовательId={}, bookingId={}", userId, bookingId);
@@ -84,41 +238,183 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingDto> getUserBookings(Long userId, StateParam state) {
-        log.info("BookingService: Получение списка бронирований пользователя: пользователь Id={}, state={}", userId, state);
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = switch (state) {
-            case CURRENT -> bookingRepository.findByBookerIdAndStartBeforeAndEndAfter(userId, now, now);
-            case PAST -> bookingRepository.findByBookerIdAndEndBefore(userId, now);
-            case FUTURE -> bookingRepository.findByBookerIdAndStartAfter(userId, now);
-            case WAITING -> bookingRepository.findByBookerIdAndStatus(userId, BookingStatus.WAITING);
-            case REJECTED -> bookingRepository.findByBookerIdAndStatus(userId, BookingStatus.REJECTED);
-            default -> bookingRepository.findByBookerId(userId);
-        };
-        return bookings.stream()
-                .map(bookingMapStruct::toBookingDto)
-                .collect(Collectors.toList());
+    public BookingPageDto getUserBookings(Long userId, StateParam state, String cursor, int size) {
+        log.info("BookingService: Получение списка бронирований пользователя: пользователь Id={}, state={}, cursor={}, size={}", userId, state, cursor, size);
+        return findBookings(Participant.BOOKER, userId, state, cursor, size);
     }
 
     @Override
-    public List<BookingDto> getBookingsForItemsByOwnerId(Long userId, StateParam state) {
+    public BookingPageDto getBookingsForItemsByOwnerId(Long userId, StateParam state, String cursor, int size) {
         User user = userService.getUserById(userId);
-        log.info("BookingService: Получение бронирований для вещей владельца: владелец Id={}, state={}", user.getId(), state);
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = switch (state) {
-            case CURRENT ->
-                    bookingRepository.findByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(userId, now, now);
-            case PAST -> bookingRepository.findByItemOwnerIdAndEndBeforeOrderByStartDesc(userId, now);
-            case FUTURE -> bookingRepository.findByItemOwnerIdAndStartAfterOrderByStartDesc(userId, now);
-            case WAITING -> bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(userId, BookingStatus.WAITING);
-            case REJECTED ->
-                    bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(userId, BookingStatus.REJECTED);
-            default -> bookingRepository.findByItemOwnerIdOrderByStartDesc(userId);
-        };
-        log.info("BookingService: Найдено бронирований для владельца {}: {}", user.getId(), bookings.size());
-        return bookings.stream()
-                .map(bookingMapStruct::toBookingDto)
-                .toList();
+        log.info("BookingService: Получение бронирований для вещей владельца: владелец Id={}, state={}, cursor={}, size={}", user.getId(), state, cursor, size);
+        BookingPageDto bookings = findBookings(Participant.OWNER, userId, state, cursor, size);
+        log.info("BookingService: Найдено бронирований для владельца {}: {}", user.getId(), bookings.getBookings().size());
+        return bookings;
+    }
+
+    // Архив хранит только завершённые бронирования, поэтому он добавляется к ALL и PAST, как и в списках
+    @Override
+    public BookingSummaryDto getOwnerBookingSummary(Long userId) {
+        User user = userService.getUserById(userId);
+        log.info("BookingService: Получение счётчиков бронирований владельца: владелец Id={}", user.getId());
+        BookingStateCounts counts = bookingRepository.countStatesByOwnerId(userId);
+        return BookingSummaryDto.builder()
+                .all(counts.all() + counts.archived())
+                .current(counts.current())
+                .past(counts.past() + counts.archived())
+                .future(counts.future())
+                .waiting(counts.waiting())
+                .rejected(counts.rejected())
+                .build();
+    }
+
+    // Отдаёт бронирования владельца по одному прямо из курсора БД, включая архив, не собирая их в список
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOwnerBookings(Long userId, Consumer<BookingDto> consumer) {
+        User user = userService.getUserById(userId);
+        log.info("BookingService: Выгрузка бронирований владельца: владелец Id={}", user.getId());
+        try (Stream<BookingDtoProjection> bookings = bookingRepository.streamProjectedByOwnerId(userId)) {
+            bookings.map(bookingMapStruct::toBookingDto).forEach(consumer);
+        }
+        try (Stream<BookingDtoProjection> bookings = bookingRepository.streamArchivedProjectedByOwnerId(userId)) {
+            bookings.map(bookingMapStruct::toBookingDto).forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int archiveFinishedBookings(LocalDateTime endedBefore, int limit) {
+        List<Long> bookingIds = bookingRepository.findArchivableIds(endedBefore, limit);
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        bookingRepository.copyToArchive(bookingIds);
+        int archived = bookingRepository.deleteByIds(bookingIds);
+        log.debug("BookingService: В архив перенесено бронирований: {}", archived);
+        return archived;
+    }
+
+    // Бронирования, по которым владелец не принял решение за TTL или до начала, отменяются. Строки блокируются
+    // выборкой, чтобы параллельное подтверждение владельцем не попало между выборкой и UPDATE; даты вещей
+    // пересчитывает ItemBookingDatesListener по событию EXPIRED
+    @Override
+    @Transactional
+    public int expireStaleWaitingBookings(LocalDateTime createdBefore, LocalDateTime now, int limit) {
+        List<Long> bookingIds = bookingRepository.findStaleWaitingIds(createdBefore, now, limit);
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        List<Booking> stale = bookingRepository.findWaitingByIdsForUpdate(bookingIds);
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        int expired = bookingRepository.cancelWaiting(stale.stream().map(Booking::getId).toList());
+        bookingOutbox.append(stale, BookingEventType.EXPIRED);
+        stale.forEach(booking -> booking.setStatus(BookingStatus.CANCELED));
+        afterCommit(() -> stale.forEach(booking -> {
+            bookingIntervalIndex.update(booking);
+            itemAvailabilityIndex.update(booking);
+        }));
+        log.debug("BookingService: Отменено просроченных бронирований: {}", expired);
+        return expired;
+    }
+
+    // Архив содержит только завершённые бронирования, поэтому для PAST и ALL он дочитывается
+    // после того, как в bookings закончились строки; остальные состояния живут только в bookings
+    private BookingPageDto findBookings(Participant participant, Long userId, StateParam state,
+                                        String cursor, int size) {
+        if (size < 1) {
+            log.warn("BookingService: Некорректный размер страницы: size={}", size);
+            throw new ValidationException("некорректный размер страницы: size=" + size);
+        }
+        BookingCursor position = cursor != null && !cursor.isBlank() ? BookingCursor.decode(cursor) : null;
+        boolean withArchive = state == StateParam.PAST || state == StateParam.ALL;
+        List<BookingDtoProjection> content = new ArrayList<>();
+        if (position == null || !position.archived()) {
+            Specification<Booking> specification = participant.<Booking>of(userId)
+                    .and(BookingSpecifications.inState(state));
+            if (position != null) {
+                specification = specification.and(BookingSpecifications.after(position));
+            }
+            Window<BookingDtoProjection> bookings = bookingRepository.findProjectedBy(specification, size);
+            if (bookings.hasNext() || !withArchive) {
+                return toBookingPageDto(bookings.getContent(), bookings.hasNext()
+                        ? nextCursor(bookings.getContent().getLast(), false)
+                        : null);
+            }
+            content.addAll(bookings.getContent());
+            position = BookingCursor.archiveHead();
+        }
+        Specification<ArchivedBooking> specification = participant.of(userId);
+        if (position.hasPosition()) {
+            specification = specification.and(BookingSpecifications.after(position));
+        }
+        Window<BookingDtoProjection> archived = bookingRepository.findArchivedProjectedBy(specification,
+                size - content.size());
+        content.addAll(archived.getContent());
+        String nextCursor = null;
+        if (archived.hasNext()) {
+            nextCursor = archived.isEmpty()
+                    ? BookingCursor.archiveHead().encode()
+                    : nextCursor(archived.getContent().getLast(), true);
+        }
+        return toBookingPageDto(content, nextCursor);
+    }
+
+    // Индексы в памяти меняются только после фиксации: при откате они должны остаться такими же, как строки в БД.
+    // Вне транзакции действие выполняется сразу
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static boolean isPeriodConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BookingBatchResultDto rejectedBooking(int index, String error) {
+        return BookingBatchResultDto.builder()
+                .index(index)
+                .error(error)
+                .build();
+    }
+
+    private String nextCursor(BookingDtoProjection last, boolean archived) {
+        return new BookingCursor(last.start(), last.id(), archived).encode();
+    }
+
+    private BookingPageDto toBookingPageDto(List<BookingDtoProjection> bookings, String nextCursor) {
+        return BookingPageDto.builder()
+                .bookings(bookings.stream()
+                        .map(bookingMapStruct::toBookingDto)
+                        .toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private enum Participant {
+
+        BOOKER,
+        OWNER;
+
+        <T> Specification<T> of(Long userId) {
+            return this == BOOKER ? BookingSpecifications.byBooker(userId) : BookingSpecifications.byItemOwner(userId);
+        }
+
     }
 
 }
\ No newline at end of file
@@ -2,15 +2,22 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.*;
+import ru.practicum.shareit.item.model.AvailabilityUnit;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.util.IdempotencyStore;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static ru.practicum.shareit.util.AppConstant.CUSTOM_REQUEST_HEADER_USER_ID;
+import static ru.practicum.shareit.util.AppConstant.IDEMPOTENCY_KEY_HEADER;
 
 @Slf4j
 @RestController
@@ -19,12 +26,15 @@ import static ru.practicum.shareit.util.AppConstant.CUSTOM_REQUEST_HEADER_USER_I
 public class ItemController {
 
     private final ItemService itemService;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping
     public ResponseEntity<ItemDto> addItem(@RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
                                            @RequestBody NewItemAddRequest newItemAddRequest) {
-        log.info("ItemController: Создание вещи: пользовательId={}, запрос={}", userId, newItemAddRequest);
-        ItemDto itemDto = itemService.addItem(userId, newItemAddRequest);
+        log.info("ItemController: Создание вещи: пользовательId={}, ключ={}, запрос={}", userId, idempotencyKey, newItemAddRequest);
+        ItemDto itemDto = idempotencyStore.execute("items", userId, idempotencyKey, newItemAddRequest,
+                () -> itemService.addItem(userId, newItemAddRequest));
         log.info("ItemController: Вещь создана: itemId={}, пользовательId={}", itemDto.getId(), userId);
         return ResponseEntity.status(HttpStatus.CREATED).body(itemDto);
     }
@@ -56,6 +66,17 @@ public class ItemController {
         return ResponseEntity.ok(usersItemDto);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<ItemAvailabilityDto> getItemAvailability(@PathVariable(value = "itemId") Long itemId,
+                                                                   @RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                   @RequestParam(value = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                   @RequestParam(value = "unit", defaultValue = "DAY") String unit) {
+        log.info("ItemController: Получение календаря занятости: itemId={}, from={}, to={}, unit={}", itemId, from, to, unit);
+        ItemAvailabilityDto availability = itemService.getItemAvailability(itemId, from, to, AvailabilityUnit.fromString(unit));
+        log.info("ItemController: Календарь занятости получен: itemId={}, слотов={}", itemId, availability.getSlots().size());
+        return ResponseEntity.ok(availability);
+    }
+
     @DeleteMapping("/{itemId}")
     public ResponseEntity<Void> deleteItem(@PathVariable(value = "itemId") Long itemId,
                                            @RequestHeader(CUSTOM_REQUEST_HEADER_USER_ID) Long userId) {
@@ -66,11 +87,34 @@ public class ItemController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ItemDto>> searchItems(@RequestParam(value = "text") String text) {
-        log.info("ItemController: Поиск вещей по тексту: '{}'", text);
-        List<ItemDto> searchItem = itemService.searchItemsByText(text);
-        log.info("ItemController: Найдено вещей по запросу '{}': {}", text, searchItem.size());
-        return ResponseEntity.ok(searchItem);
+    public ResponseEntity<ItemPageDto> searchItems(@RequestParam(value = "text") String text,
+                                                   @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                   @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                   @RequestParam(defaultValue = "false") boolean fuzzy,
+                                                   @RequestParam(defaultValue = "0") int page,
+                                                   @RequestParam(defaultValue = "10") int size) {
+        log.info("ItemController: Поиск вещей по тексту: '{}', from={}, to={}, с опечатками={}, страница={}, размер={}",
+                text, from, to, fuzzy, page, size);
+        Page<ItemDto> searchItem = itemService.searchItemsByText(text, from, to, fuzzy, page, size);
+        log.info("ItemController: Найдено вещей по запросу '{}': {}, на странице={}",
+                text, searchItem.getTotalElements(), searchItem.getNumberOfElements());
+        return ResponseEntity.ok(ItemPageDto.builder()
+                .content(searchItem.getContent())
+                .number(searchItem.getNumber())
+                .size(searchItem.getSize())
+                .totalElements(searchItem.getTotalElements())
+                .totalPages(searchItem.getTotalPages())
+                .last(searchItem.isLast())
+                .build());
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ItemSuggestionDto>> suggestItems(@RequestParam(value = "prefix") String prefix,
+                                                                @RequestParam(defaultValue = "10") int size) {
+        log.info("ItemController: Подсказки по префиксу: '{}', размер={}", prefix, size);
+        List<ItemSuggestionDto> suggestions = itemService.suggestItems(prefix, size);
+        log.info("ItemController: Найдено подсказок по префиксу '{}': {}", prefix, suggestions.size());
+        return ResponseEntity.ok(suggestions);
     }
 
     @PostMapping("/{itemId}/comment")
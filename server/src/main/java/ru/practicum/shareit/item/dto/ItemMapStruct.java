@@ -9,6 +9,8 @@ public interface ItemMapStruct {
 
     ItemDto toItemDto(Item item);
 
+    @Mapping(target = "lastBooking", source = "lastBookingStart")
+    @Mapping(target = "nextBooking", source = "nextBookingStart")
     ItemDtoWithDate itemDtoWithDate(Item item);
 
     @Mapping(target = "itemId", source = "item.id")
@@ -17,8 +19,16 @@ public interface ItemMapStruct {
     ItemDtoForRequest itemDtoForRequest(Item item);
 
     @Mapping(target = "name", source = "newItemAddRequest.name")
+    @Mapping(target = "lastBookingId", ignore = true)
+    @Mapping(target = "lastBookingStart", ignore = true)
+    @Mapping(target = "nextBookingId", ignore = true)
+    @Mapping(target = "nextBookingStart", ignore = true)
     Item newItem(NewItemAddRequest newItemAddRequest);
 
+    @Mapping(target = "lastBookingId", ignore = true)
+    @Mapping(target = "lastBookingStart", ignore = true)
+    @Mapping(target = "nextBookingId", ignore = true)
+    @Mapping(target = "nextBookingStart", ignore = true)
     void updateItem(@MappingTarget Item item, UpdateItemRequest updateItemRequest);
 
 }
\ No newline at end of file
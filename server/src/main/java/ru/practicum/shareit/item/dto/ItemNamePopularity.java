@@ -0,0 +1,6 @@
+package ru.practicum.shareit.item.dto;
+
+public record ItemNamePopularity(Long id,
+                                 String name,
+                                 Long bookings) {
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Страница результатов поиска в формате PageResponse шлюза: сериализация PageImpl не стабильна между версиями Spring Data
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemPageDto {
+
+    @Builder.Default
+    private List<ItemDto> content = new ArrayList<>();
+
+    private int number;
+
+    private int size;
+
+    private long totalElements;
+
+    private int totalPages;
+
+    private boolean last;
+
+}
@@ -0,0 +1,6 @@
+package ru.practicum.shareit.item.dto;
+
+public record ItemText(Long id,
+                       String name,
+                       String description) {
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.item.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventListener;
+import ru.practicum.shareit.booking.event.BookingEventType;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Новое бронирование может стать ближайшим у вещи, отклонённое или просроченное могло быть ближайшим или
+// последним — даты вещей обновляются вне потока запроса, один раз на пачку событий, а не на каждое бронирование
+@Component
+@RequiredArgsConstructor
+public class ItemBookingDatesListener implements BookingEventListener {
+
+    private static final Set<BookingEventType> RELEASING_TYPES = EnumSet.of(BookingEventType.REJECTED,
+            BookingEventType.EXPIRED);
+
+    private final ItemService itemService;
+    private final BookingRepository bookingRepository;
+
+    @Override
+    public void onBookingEvents(List<BookingEvent> events) {
+        List<Long> createdIds = events.stream()
+                .filter(event -> event.getType() == BookingEventType.CREATED)
+                .map(BookingEvent::getBookingId)
+                .toList();
+        if (!createdIds.isEmpty()) {
+            itemService.applyNewBookings(bookingRepository.findAllById(createdIds));
+        }
+        events.stream()
+                .filter(event -> RELEASING_TYPES.contains(event.getType()))
+                .map(BookingEvent::getItemId)
+                .distinct()
+                .forEach(itemService::refreshBookingDates);
+    }
+
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventListener;
+import ru.practicum.shareit.booking.event.BookingEventType;
+import ru.practicum.shareit.item.suggest.ItemSuggestIndex;
+
+import java.util.List;
+
+// Подтверждённое бронирование поднимает вещь в подсказках; счётчики перечитываются из БД одним запросом на пачку
+@Component
+@RequiredArgsConstructor
+public class ItemPopularityListener implements BookingEventListener {
+
+    private final ItemSuggestIndex itemSuggestIndex;
+
+    @Override
+    public void onBookingEvents(List<BookingEvent> events) {
+        List<Long> itemIds = events.stream()
+                .filter(event -> event.getType() == BookingEventType.APPROVED)
+                .map(BookingEvent::getItemId)
+                .distinct()
+                .toList();
+        itemSuggestIndex.refreshPopularity(itemIds);
+    }
+
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.model;
+
+public enum AvailabilityUnit {
+
+    DAY,
+    HOUR;
+
+    public static AvailabilityUnit fromString(String value) {
+        try {
+            return AvailabilityUnit.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return AvailabilityUnit.DAY;
+        }
+    }
+
+}
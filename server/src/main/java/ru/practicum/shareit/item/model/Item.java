@@ -7,6 +7,7 @@ import lombok.*;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -48,4 +49,18 @@ public class Item {
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "item", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments = new ArrayList<>();
 
+    // Ближайшее и последнее начавшееся бронирование ведутся отдельными UPDATE из ItemService,
+    // поэтому сохранение самой вещи их не перезаписывает
+    @Column(name = "last_booking_id", insertable = false, updatable = false)
+    private Long lastBookingId;
+
+    @Column(name = "last_booking_start", insertable = false, updatable = false)
+    private LocalDateTime lastBookingStart;
+
+    @Column(name = "next_booking_id", insertable = false, updatable = false)
+    private Long nextBookingId;
+
+    @Column(name = "next_booking_start", insertable = false, updatable = false)
+    private LocalDateTime nextBookingStart;
+
 }
\ No newline at end of file
@@ -1,22 +1,113 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemNamePopularity;
+import ru.practicum.shareit.item.dto.ItemText;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
     List<Item> findItemByOwnerId(Long userId);
 
-    @Query("SELECT i FROM Item i WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', ?1, '%')) " +
-            "OR LOWER(i.description) LIKE LOWER(CONCAT('%', ?1, '%'))) " +
-            "AND i.available = true")
-    List<Item> searchItemsByText(String text);
+    // Совпадение в названии считается релевантнее совпадения только в описании
+    @Query(value = "SELECT i FROM Item i WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) " +
+            "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%'))) " +
+            "AND i.available = true " +
+            "ORDER BY CASE WHEN LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) THEN 0 ELSE 1 END, i.id",
+            countQuery = "SELECT COUNT(i) FROM Item i WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) " +
+                    "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%'))) " +
+                    "AND i.available = true")
+    Page<Item> searchItemsByText(@Param("text") String text, Pageable pageable);
+
+    // Анти-соединение с пересекающимися бронированиями идёт по ix_booking_item_period
+    @Query(value = "SELECT i FROM Item i WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) " +
+            "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%'))) " +
+            "AND i.available = true " +
+            "AND NOT EXISTS (SELECT 1 FROM Booking b WHERE b.item.id = i.id AND b.status IN :statuses " +
+            "AND b.start < :to AND b.end > :from) " +
+            "ORDER BY CASE WHEN LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) THEN 0 ELSE 1 END, i.id",
+            countQuery = "SELECT COUNT(i) FROM Item i WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) " +
+                    "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%'))) " +
+                    "AND i.available = true " +
+                    "AND NOT EXISTS (SELECT 1 FROM Booking b WHERE b.item.id = i.id AND b.status IN :statuses " +
+                    "AND b.start < :to AND b.end > :from)")
+    Page<Item> searchAvailableItemsByText(@Param("text") String text,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to,
+                                          @Param("statuses") Collection<BookingStatus> statuses,
+                                          Pageable pageable);
+
+    // Только PostgreSQL: search_vector и ix_item_search объявлены в schema-postgresql.sql. Страница берётся
+    // LIMIT/OFFSET поверх ORDER BY ts_rank, поэтому БД ранжирует только совпавшие строки и отдаёт первые K
+    @Query(value = "SELECT i.* FROM items i " +
+            "CROSS JOIN websearch_to_tsquery('russian', :text) q " +
+            "WHERE i.search_vector @@ q AND i.is_available " +
+            "ORDER BY ts_rank(i.search_vector, q) DESC, i.item_id",
+            countQuery = "SELECT COUNT(*) FROM items i " +
+                    "WHERE i.search_vector @@ websearch_to_tsquery('russian', :text) AND i.is_available",
+            nativeQuery = true)
+    Page<Item> fullTextSearch(@Param("text") String text, Pageable pageable);
+
+    @Query(value = "SELECT i.* FROM items i " +
+            "CROSS JOIN websearch_to_tsquery('russian', :text) q " +
+            "WHERE i.search_vector @@ q AND i.is_available " +
+            "AND NOT EXISTS (SELECT 1 FROM bookings b WHERE b.item_id = i.item_id " +
+            "AND b.status IN ('WAITING', 'APPROVED') AND b.start_date < :to AND b.end_date > :from) " +
+            "ORDER BY ts_rank(i.search_vector, q) DESC, i.item_id",
+            countQuery = "SELECT COUNT(*) FROM items i " +
+                    "WHERE i.search_vector @@ websearch_to_tsquery('russian', :text) AND i.is_available " +
+                    "AND NOT EXISTS (SELECT 1 FROM bookings b WHERE b.item_id = i.item_id " +
+                    "AND b.status IN ('WAITING', 'APPROVED') AND b.start_date < :to AND b.end_date > :from)",
+            nativeQuery = true)
+    Page<Item> fullTextSearchAvailable(@Param("text") String text,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       Pageable pageable);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemText(i.id, i.name, i.description) " +
+            "FROM Item i WHERE i.available = true")
+    List<ItemText> findAvailableTexts();
+
+    @Query("SELECT i.id FROM Item i WHERE i.id IN :itemIds " +
+            "AND NOT EXISTS (SELECT 1 FROM Booking b WHERE b.item.id = i.id AND b.status IN :statuses " +
+            "AND b.start < :to AND b.end > :from)")
+    List<Long> findIdsFreeInPeriod(@Param("itemIds") Collection<Long> itemIds,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to,
+                                   @Param("statuses") Collection<BookingStatus> statuses);
+
+    // Популярность для подсказок — число подтверждённых бронирований вещи
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemNamePopularity(i.id, i.name, COUNT(b)) " +
+            "FROM Item i LEFT JOIN Booking b ON b.item.id = i.id " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED " +
+            "WHERE i.available = true " +
+            "GROUP BY i.id, i.name")
+    List<ItemNamePopularity> findAvailableNamePopularity();
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemNamePopularity(i.id, i.name, COUNT(b)) " +
+            "FROM Item i LEFT JOIN Booking b ON b.item.id = i.id " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED " +
+            "WHERE i.available = true AND i.id IN :itemIds " +
+            "GROUP BY i.id, i.name")
+    List<ItemNamePopularity> findAvailableNamePopularityByIds(@Param("itemIds") Collection<Long> itemIds);
 
     @Query("SELECT i FROM Item i " +
             "LEFT JOIN FETCH i.owner " +
@@ -25,4 +116,41 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             "WHERE i.id = :itemId")
     Optional<Item> findByIdWithOwnerAndRequest(Long itemId);
 
-}
\ No newline at end of file
+    @Query("SELECT i.id FROM Item i WHERE i.nextBookingStart <= :now")
+    List<Long> findIdsWithNextBookingStartedBefore(@Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE items SET next_booking_id = :bookingId, next_booking_start = :start " +
+            "WHERE item_id = :itemId AND (next_booking_start IS NULL OR next_booking_start > :start)",
+            nativeQuery = true)
+    int offerNextBooking(@Param("itemId") Long itemId,
+                         @Param("bookingId") Long bookingId,
+                         @Param("start") LocalDateTime start);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE items SET last_booking_id = :lastBookingId, last_booking_start = :lastBookingStart, " +
+            "next_booking_id = :nextBookingId, next_booking_start = :nextBookingStart " +
+            "WHERE item_id = :itemId",
+            nativeQuery = true)
+    void updateBookingDates(@Param("itemId") Long itemId,
+                            @Param("lastBookingId") Long lastBookingId,
+                            @Param("lastBookingStart") LocalDateTime lastBookingStart,
+                            @Param("nextBookingId") Long nextBookingId,
+                            @Param("nextBookingStart") LocalDateTime nextBookingStart);
+
+    // Вещи в порядке переданных id; id удалённых вещей пропускаются
+    default List<Item> findAllByIdInOrder(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Item> itemsById = findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return itemIds.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.service.ItemService;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBookingDatesSweeper {
+
+    private final ItemService itemService;
+
+    // Сдвигает next/last у вещей, чьё ближайшее бронирование уже началось
+    @Scheduled(fixedDelayString = "${shareit.items.booking-dates-sweep-interval:PT1M}",
+            initialDelayString = "${shareit.items.booking-dates-sweep-interval:PT1M}")
+    public void sweep() {
+        log.debug("ItemBookingDatesSweeper: Проверка дат бронирований вещей");
+        itemService.refreshPassedBookingDates();
+    }
+
+}
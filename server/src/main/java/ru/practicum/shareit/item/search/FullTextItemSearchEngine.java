@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+
+// Поиск по GIN-индексу ix_item_search: запрос разбирается websearch_to_tsquery (кавычки, OR, минус),
+// результаты упорядочены по ts_rank, где совпадение в названии весит больше, чем в описании
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.items.search.engine", havingValue = "full-text")
+public class FullTextItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public Page<Item> search(String text, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        return from == null
+                ? itemRepository.fullTextSearch(text, pageable)
+                : itemRepository.fullTextSearchAvailable(text, from, to, pageable);
+    }
+
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Поиск с опечатками: кандидаты и их порядок берутся из словаря терминов в памяти, БД только отсекает
+// занятые в периоде вещи и загружает вещи одной страницы. Кандидатов не больше MAX_CANDIDATES —
+// дальше релевантность падает, а список id уходит в IN
+@Component
+@RequiredArgsConstructor
+public class FuzzyItemSearch {
+
+    private static final int MAX_CANDIDATES = 1000;
+
+    private final ItemTermDictionary itemTermDictionary;
+    private final ItemRepository itemRepository;
+
+    public Page<Item> search(String text, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        List<Long> ranked = itemTermDictionary.search(text);
+        if (ranked.size() > MAX_CANDIDATES) {
+            ranked = ranked.subList(0, MAX_CANDIDATES);
+        }
+        if (from != null && !ranked.isEmpty()) {
+            Set<Long> free = new HashSet<>(itemRepository.findIdsFreeInPeriod(ranked, from, to,
+                    BookingIntervalIndex.BLOCKING_STATUSES));
+            ranked = ranked.stream().filter(free::contains).toList();
+        }
+        int start = (int) Math.min(pageable.getOffset(), ranked.size());
+        int end = Math.min(start + pageable.getPageSize(), ranked.size());
+        List<Long> pageIds = ranked.subList(start, end);
+        List<Item> content = itemRepository.findAllByIdInOrder(pageIds);
+        return new PageImpl<>(content, pageable, ranked.size());
+    }
+
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+
+// Реализация выбирается свойством shareit.items.search.engine: full-text для PostgreSQL, like для H2
+public interface ItemSearchEngine {
+
+    // from и to задаются вместе; тогда вещи с пересекающимися WAITING/APPROVED бронированиями исключаются
+    Page<Item> search(String text, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+}
@@ -0,0 +1,185 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemText;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Отсортированный словарь терминов из названий и описаний доступных вещей: термин -> id вещей.
+// Слово запроса ищется пересечением словаря с автоматом Левенштейна: термины обходятся по порядку,
+// состояния автомата для общего с предыдущим термином префикса переиспользуются, а как только префикс
+// становится тупиковым, весь диапазон терминов с этим префиксом пропускается одним переходом по TreeMap.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemTermDictionary {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ItemRepository itemRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> termsByItem = new HashMap<>();
+
+    // Запрос в БД идёт под блокировкой записи, чтобы изменения, пришедшие во время загрузки, не потерялись
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            itemRepository.findAvailableTexts()
+                    .forEach(item -> index(item.id(), tokenize(item.name() + " " + item.description())));
+            log.info("ItemTermDictionary: Словарь терминов построен, вещей={}, терминов={}",
+                    termsByItem.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            unindex(item.getId());
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                index(item.getId(), tokenize(item.getName() + " " + item.getDescription()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            unindex(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Вещи, у которых для каждого слова запроса есть близкий термин; порядок — по сумме расстояний, затем по id
+    public List<Long> search(String text) {
+        Set<String> words = tokenize(text);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String word : words) {
+                Map<Long, Integer> matches = match(word, maxEditsFor(word));
+                if (scores == null) {
+                    scores = matches;
+                } else {
+                    scores.keySet().retainAll(matches.keySet());
+                    scores.replaceAll((itemId, score) -> score + matches.get(itemId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Короткие слова сравниваются точно: у слова из двух букв одна правка даёт слишком много совпадений
+    static int maxEditsFor(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    private Map<Long, Integer> match(String word, int maxEdits) {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(word, maxEdits);
+        Map<Long, Integer> matches = new HashMap<>();
+        List<int[]> states = new ArrayList<>();
+        states.add(automaton.start());
+        String previous = "";
+        String term = postings.isEmpty() ? null : postings.firstKey();
+        while (term != null) {
+            int depth = Math.min(commonPrefix(previous, term), states.size() - 1);
+            states.subList(depth + 1, states.size()).clear();
+            boolean dead = false;
+            while (depth < term.length()) {
+                int[] next = automaton.step(states.get(depth), term.charAt(depth));
+                if (automaton.isDead(next)) {
+                    dead = true;
+                    break;
+                }
+                states.add(next);
+                depth++;
+            }
+            previous = term;
+            if (dead) {
+                term = postings.higherKey(term.substring(0, depth + 1) + Character.MAX_VALUE);
+                continue;
+            }
+            int[] state = states.get(depth);
+            if (automaton.isMatch(state)) {
+                int distance = automaton.distance(state);
+                postings.get(term).forEach(itemId -> matches.merge(itemId, distance, Math::min));
+            }
+            term = postings.higherKey(term);
+        }
+        return matches;
+    }
+
+    private void index(Long itemId, Set<String> terms) {
+        termsByItem.put(itemId, terms);
+        terms.forEach(term -> postings.computeIfAbsent(term, key -> new HashSet<>()).add(itemId));
+    }
+
+    private void unindex(Long itemId) {
+        Set<String> terms = termsByItem.remove(itemId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Set<Long> itemIds = postings.get(term);
+            itemIds.remove(itemId);
+            if (itemIds.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    static int commonPrefix(String left, String right) {
+        int length = Math.min(left.length(), right.length());
+        int i = 0;
+        while (i < length && left.charAt(i) == right.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.item.search;
+
+// Детерминированный автомат Левенштейна для одного слова запроса. Состояние — строка таблицы редакционного
+// расстояния между словом и прочитанным префиксом термина; значения обрезаются до maxEdits + 1, поэтому
+// состояний конечное число. Переход по символу стоит O(длина слова), аллокаций на переход одна.
+final class LevenshteinAutomaton {
+
+    private final String word;
+    private final int maxEdits;
+
+    LevenshteinAutomaton(String word, int maxEdits) {
+        this.word = word;
+        this.maxEdits = maxEdits;
+    }
+
+    int[] start() {
+        int[] state = new int[word.length() + 1];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = Math.min(i, maxEdits + 1);
+        }
+        return state;
+    }
+
+    int[] step(int[] state, char c) {
+        int[] next = new int[state.length];
+        next[0] = Math.min(state[0] + 1, maxEdits + 1);
+        for (int i = 1; i < state.length; i++) {
+            int replace = state[i - 1] + (word.charAt(i - 1) == c ? 0 : 1);
+            int value = Math.min(replace, Math.min(state[i] + 1, next[i - 1] + 1));
+            next[i] = Math.min(value, maxEdits + 1);
+        }
+        return next;
+    }
+
+    // Ни одно продолжение прочитанного префикса уже не уложится в maxEdits
+    boolean isDead(int[] state) {
+        for (int value : state) {
+            if (value <= maxEdits) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isMatch(int[] state) {
+        return distance(state) <= maxEdits;
+    }
+
+    int distance(int[] state) {
+        return state[state.length - 1];
+    }
+
+}
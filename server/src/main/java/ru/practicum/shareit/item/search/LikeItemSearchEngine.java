@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+
+// Поиск подстрокой через LIKE без индекса; для H2 в тестовом профиле, где нет tsvector
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.items.search.engine", havingValue = "like", matchIfMissing = true)
+public class LikeItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public Page<Item> search(String text, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        return from == null
+                ? itemRepository.searchItemsByText(text, pageable)
+                : itemRepository.searchAvailableItemsByText(text, from, to, BookingIntervalIndex.BLOCKING_STATUSES,
+                pageable);
+    }
+
+}
@@ -0,0 +1,293 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Кэш страниц поиска: ключ — текст запроса в нижнем регистре, режим и страница, значение — id вещей страницы
+// и общее число найденных. Вещи по id догружаются из БД, поэтому комментарии и владелец в выдаче не устаревают,
+// а кэш экономит ранжирование и подсчёт. Вес записи — число id; при переполнении новая страница вытесняет
+// самые давние по LRU, только если по частотному скетчу её запрашивают чаще, чем их (допуск TinyLFU).
+// Запись вещи сбрасывает страницы, у которых слово запроса может совпасть со словом старого или нового текста вещи.
+@Slf4j
+@Component
+public class SearchResultCache {
+
+    // Не меньше длины основы слова в полнотекстовом поиске: при таком общем префиксе слова могут совпасть
+    private static final int STEM_PREFIX_LENGTH = 3;
+
+    private final ItemRepository itemRepository;
+    private final int maxWeight;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByWord = new HashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter invalidations;
+    private long weight;
+    // Растёт при каждой записи вещи: страница, посчитанная до записи, в кэш уже не попадёт
+    private long version;
+
+    public SearchResultCache(ItemRepository itemRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${shareit.items.search.cache.max-weight:50000}") int maxWeight) {
+        this.itemRepository = itemRepository;
+        this.maxWeight = maxWeight;
+        this.sketch = new FrequencySketch(maxWeight);
+        this.hits = Counter.builder("shareit.items.search.cache.requests")
+                .description("Запросы поиска, обслуженные кэшем")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("shareit.items.search.cache.requests")
+                .description("Запросы поиска, обслуженные кэшем")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("shareit.items.search.cache.evictions")
+                .description("Страницы, вытесненные из кэша поиска при переполнении")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("shareit.items.search.cache.invalidations")
+                .description("Страницы, сброшенные из кэша поиска после записи вещи")
+                .register(meterRegistry);
+        Gauge.builder("shareit.items.search.cache.hit.ratio", this, SearchResultCache::hitRatio)
+                .description("Доля запросов поиска, обслуженных кэшем")
+                .register(meterRegistry);
+        Gauge.builder("shareit.items.search.cache.size", this, SearchResultCache::size)
+                .description("Число страниц в кэше поиска")
+                .register(meterRegistry);
+    }
+
+    // Запрос без слов (например, из одних знаков) нельзя сбросить по словам, поэтому он не кэшируется
+    public Page<Item> get(String text, boolean fuzzy, Pageable pageable, Supplier<Page<Item>> loader) {
+        Key key = new Key(text.toLowerCase(Locale.ROOT), fuzzy, pageable.getPageNumber(), pageable.getPageSize());
+        Set<String> words = ItemTermDictionary.tokenize(key.text());
+        if (words.isEmpty()) {
+            return loader.get();
+        }
+        Entry cached;
+        long observedVersion;
+        synchronized (this) {
+            sketch.increment(key);
+            cached = entries.get(key);
+            observedVersion = version;
+        }
+        if (cached != null) {
+            hits.increment();
+            return new PageImpl<>(itemRepository.findAllByIdInOrder(cached.itemIds()), pageable, cached.total());
+        }
+        misses.increment();
+        Page<Item> page = loader.get();
+        List<Long> itemIds = page.getContent().stream().map(Item::getId).toList();
+        admit(key, observedVersion, new Entry(itemIds, page.getTotalElements(), words));
+        return page;
+    }
+
+    // Тексты вещи до и после записи: сбрасываются страницы, которые вещь могла покинуть или в которые могла попасть.
+    // Автоматы Левенштейна строятся вне блокировки по снимку слов; версия растёт до снимка, поэтому страница,
+    // посчитанная до записи, не попадёт в кэш и под словом, которого в снимке ещё не было
+    public void invalidate(String... itemTexts) {
+        Set<String> tokens = new HashSet<>();
+        Arrays.stream(itemTexts).forEach(text -> tokens.addAll(ItemTermDictionary.tokenize(text)));
+        List<String> words;
+        synchronized (this) {
+            version++;
+            words = List.copyOf(keysByWord.keySet());
+        }
+        List<String> touched = new ArrayList<>();
+        List<String> touchedFuzzy = new ArrayList<>();
+        for (String word : words) {
+            if (touches(word, tokens)) {
+                touched.add(word);
+            } else if (touchesFuzzy(word, tokens)) {
+                touchedFuzzy.add(word);
+            }
+        }
+        if (touched.isEmpty() && touchedFuzzy.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            Set<Key> stale = new HashSet<>();
+            touched.forEach(word -> stale.addAll(keysByWord.getOrDefault(word, Set.of())));
+            touchedFuzzy.forEach(word -> keysByWord.getOrDefault(word, Set.of()).stream()
+                    .filter(Key::fuzzy)
+                    .forEach(stale::add));
+            stale.forEach(this::remove);
+            invalidations.increment(stale.size());
+            if (!stale.isEmpty()) {
+                log.info("SearchResultCache: Сброшено страниц поиска после записи вещи: {}", stale.size());
+            }
+        }
+    }
+
+    double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void admit(Key key, long observedVersion, Entry entry) {
+        if (version != observedVersion || entries.containsKey(key) || entry.weight() > maxWeight) {
+            return;
+        }
+        List<Key> victims = new ArrayList<>();
+        long freed = 0;
+        int victimFrequency = 0;
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (weight - freed + entry.weight() > maxWeight) {
+            Map.Entry<Key, Entry> victim = eldest.next();
+            victims.add(victim.getKey());
+            freed += victim.getValue().weight();
+            victimFrequency = Math.max(victimFrequency, sketch.frequency(victim.getKey()));
+        }
+        if (!victims.isEmpty() && sketch.frequency(key) <= victimFrequency) {
+            return;
+        }
+        victims.forEach(this::remove);
+        evictions.increment(victims.size());
+        entries.put(key, entry);
+        weight += entry.weight();
+        entry.words().forEach(word -> keysByWord.computeIfAbsent(word, w -> new HashSet<>()).add(key));
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        weight -= entry.weight();
+        for (String word : entry.words()) {
+            Set<Key> keys = keysByWord.get(word);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByWord.remove(word);
+            }
+        }
+    }
+
+    // Условие с запасом: лишний сброс стоит одного запроса к БД, пропущенный — устаревшей выдачи.
+    // Подстрока покрывает LIKE, общий префикс — совпадение основ в полнотекстовом поиске
+    private static boolean touches(String word, Set<String> tokens) {
+        for (String token : tokens) {
+            if (token.contains(word) || ItemTermDictionary.commonPrefix(word, token) >= STEM_PREFIX_LENGTH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean touchesFuzzy(String word, Set<String> tokens) {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(word, ItemTermDictionary.maxEditsFor(word));
+        for (String token : tokens) {
+            int[] state = automaton.start();
+            for (int i = 0; i < token.length() && !automaton.isDead(state); i++) {
+                state = automaton.step(state, token.charAt(i));
+            }
+            if (automaton.isMatch(state)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Key(String text, boolean fuzzy, int page, int size) {
+    }
+
+    private record Entry(List<Long> itemIds, long total, Set<String> words) {
+
+        private int weight() {
+            return itemIds.size() + 1;
+        }
+
+    }
+
+    // Count-min скетч с 4-битными счётчиками, по два в байте: частота ключа — минимум по строкам.
+    // После 10 × width увеличений все счётчики делятся пополам, чтобы давно популярные запросы не держали место вечно
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int expectedKeys) {
+            int width = Integer.highestOneBit(Math.max(64, expectedKeys) - 1) << 1;
+            this.table = new byte[DEPTH][width / 2];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        private void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (counter(row, index) < MAX_COUNT) {
+                    table[row][index >>> 1] += (byte) (1 << shift(index));
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counter(row, index(hash, row)));
+            }
+            return frequency;
+        }
+
+        private int counter(int row, int index) {
+            return (table[row][index >>> 1] >>> shift(index)) & MAX_COUNT;
+        }
+
+        // Чётный счётчик — младшая половина байта, нечётный — старшая
+        private static int shift(int index) {
+            return (index & 1) << 2;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            for (byte[] counters : table) {
+                for (int i = 0; i < counters.length; i++) {
+                    // Сдвиг делит обе половины байта; маска убирает бит, перешедший из старшей половины в младшую
+                    counters[i] = (byte) ((counters[i] & 0xFF) >>> 1 & 0x77);
+                }
+            }
+            additions /= 2;
+        }
+
+    }
+
+}
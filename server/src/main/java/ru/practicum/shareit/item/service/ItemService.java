@@ -1,8 +1,14 @@
 package ru.practicum.shareit.item.service;
 
+import org.springframework.data.domain.Page;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.dto.*;
+import ru.practicum.shareit.item.model.AvailabilityUnit;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemService {
@@ -17,10 +23,22 @@ public interface ItemService {
 
     void deleteItem(Long itemId);
 
-    List<ItemDto> searchItemsByText(String text);
+    Page<ItemDto> searchItemsByText(String text, LocalDateTime from, LocalDateTime to, boolean fuzzy, int page, int size);
+
+    List<ItemSuggestionDto> suggestItems(String prefix, int size);
 
     Item getItemById(Long itemId);
 
+    List<Item> getItemsByIds(Collection<Long> itemIds);
+
+    void applyNewBookings(List<Booking> bookings);
+
+    void refreshBookingDates(Long itemId);
+
+    void refreshPassedBookingDates();
+
     CommentDto addComment(Long userId, Long itemId, NewCommentAddRequest newCommentAddRequest);
 
+    ItemAvailabilityDto getItemAvailability(Long itemId, LocalDate from, LocalDate to, AvailabilityUnit unit);
+
 }
\ No newline at end of file
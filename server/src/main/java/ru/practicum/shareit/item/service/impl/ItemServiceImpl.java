@@ -2,28 +2,44 @@ package ru.practicum.shareit.item.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.AccessException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.*;
+import ru.practicum.shareit.item.model.AvailabilityUnit;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.FuzzyItemSearch;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemTermDictionary;
+import ru.practicum.shareit.item.search.SearchResultCache;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.suggest.ItemSuggestIndex;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.request.service.RequestService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.util.AppValidation;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,9 +47,19 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
 
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+    private static final int MAX_AVAILABILITY_HOURLY_DAYS = 31;
+
     private final ItemRepository itemRepository;
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemAvailabilityIndex itemAvailabilityIndex;
+    private final ItemSearchEngine itemSearchEngine;
+    private final FuzzyItemSearch fuzzyItemSearch;
+    private final ItemTermDictionary itemTermDictionary;
+    private final SearchResultCache searchResultCache;
+    private final ItemSuggestIndex itemSuggestIndex;
     private final UserService userService;
     private final RequestService requestService;
     private final ItemMapStruct itemMapStruct;
@@ -51,6 +77,9 @@ public class ItemServiceImpl implements ItemService {
             item.setRequest(request);
         }
         Item newItem = itemRepository.save(item);
+        searchResultCache.invalidate(searchableText(newItem));
+        itemTermDictionary.put(newItem);
+        itemSuggestIndex.put(newItem);
         log.info("ItemService: Вещь создана: itemId={}, пользовательId={}", newItem.getId(), userId);
         return itemMapStruct.toItemDto(newItem);
     }
@@ -66,8 +95,12 @@ public class ItemServiceImpl implements ItemService {
         }
         User owner = userService.getUserById(userId);
         item.setOwner(owner);
+        String previousText = searchableText(item);
         itemMapStruct.updateItem(item, updateItemRequest);
         Item updated = itemRepository.save(item);
+        searchResultCache.invalidate(previousText, searchableText(updated));
+        itemTermDictionary.put(updated);
+        itemSuggestIndex.put(updated);
         log.info("ItemService: Вещь обновлена: itemId={}, пользовательId={}", updated.getId(), userId);
         return itemMapStruct.toItemDto(updated);
     }
@@ -77,14 +110,11 @@ public class ItemServiceImpl implements ItemService {
         log.info("ItemService: Получение вещи с датами бронирований: itemId={}", itemId);
         Item item = itemRepository.findByIdWithOwnerAndRequest(itemId)
                 .orElseThrow(() -> new NotFoundException("вещь c id = " + itemId + " не найдена"));
-        Optional<Booking> nextBooking = bookingRepository
-                .findFirstByItemAndStartAfterOrderByStartAsc(item, LocalDateTime.now());
-        Optional<Booking> lastBooking = bookingRepository
-                .findFirstByItemAndEndAfterOrderByEndDesc(item, LocalDateTime.now());
-
+        if (item.getNextBookingStart() != null && !item.getNextBookingStart().isAfter(LocalDateTime.now())) {
+            // Планировщик ещё не сдвинул даты — пересчитываем сразу, чтобы не отдать устаревшее значение
+            refreshBookingDates(item);
+        }
         ItemDtoWithDate itemDtoWithDate = itemMapStruct.itemDtoWithDate(item);
-        itemDtoWithDate.setNextBooking(nextBooking.map(Booking::getStart).orElse(null));
-        itemDtoWithDate.setLastBooking(lastBooking.map(Booking::getStart).orElse(null));
         log.info("ItemService: Вещь найдена: itemId={}", item.getId());
         return itemDtoWithDate;
     }
@@ -102,22 +132,64 @@ public class ItemServiceImpl implements ItemService {
     @Override
     public void deleteItem(Long itemId) {
         log.info("ItemService: Удаление вещи: itemId={}", itemId);
+        Optional<String> previousText = itemRepository.findById(itemId).map(ItemServiceImpl::searchableText);
         itemRepository.deleteById(itemId);
+        previousText.ifPresent(searchResultCache::invalidate);
+        itemTermDictionary.delete(itemId);
+        itemSuggestIndex.delete(itemId);
+        bookingIntervalIndex.evict(itemId);
+        itemAvailabilityIndex.evict(itemId);
         log.info("ItemService: Вещь удалена: itemId={}", itemId);
     }
 
     @Override
-    public List<ItemDto> searchItemsByText(String text) { //TODO реализовать с использованием пагинации
-        log.info("ItemService: Поиск вещей по тексту: '{}'", text);
-        if (text.trim().isBlank()) {
-            log.info("ItemService: Пустая строка поиска — возврат пустого списка");
-            return Collections.emptyList();
+    public Page<ItemDto> searchItemsByText(String text, LocalDateTime from, LocalDateTime to, boolean fuzzy,
+                                           int page, int size) {
+        log.info("ItemService: Поиск вещей по тексту: '{}', from={}, to={}, с опечатками={}, страница={}, размер={}",
+                text, from, to, fuzzy, page, size);
+        if ((from == null) != (to == null)) {
+            throw new ValidationException("период поиска должен содержать и from, и to");
         }
-        List<Item> searchItem = itemRepository.searchItemsByText(text);
-        log.info("ItemService: Найдено вещей по запросу '{}': {}", text, searchItem.size());
-        return searchItem.stream()
-                .map(itemMapStruct::toItemDto)
-                .collect(Collectors.toList());
+        if (from != null && !from.isBefore(to)) {
+            throw new ValidationException("from должен быть раньше to");
+        }
+        if (page < 0 || size < 1) {
+            throw new ValidationException("некорректные параметры страницы: page=" + page + ", size=" + size);
+        }
+        PageRequest pageRequest = PageRequest.of(page, size);
+        String query = text.strip().replaceAll("\\s+", " ");
+        if (query.isEmpty()) {
+            log.info("ItemService: Пустая строка поиска — возврат пустой страницы");
+            return Page.empty(pageRequest);
+        }
+        // Выдача с периодом зависит от бронирований, а кэш сбрасывается только записью вещей
+        Page<Item> searchItem = from == null
+                ? searchResultCache.get(query, fuzzy, pageRequest, () -> search(query, null, null, fuzzy, pageRequest))
+                : search(query, from, to, fuzzy, pageRequest);
+        log.info("ItemService: Найдено вещей по запросу '{}': {}, на странице={}",
+                text, searchItem.getTotalElements(), searchItem.getNumberOfElements());
+        return searchItem.map(itemMapStruct::toItemDto);
+    }
+
+    // Порядок по релевантности и обрезка до страницы выполняются в БД; для поиска с опечатками — в словаре терминов
+    private Page<Item> search(String query, LocalDateTime from, LocalDateTime to, boolean fuzzy, PageRequest pageRequest) {
+        return fuzzy
+                ? fuzzyItemSearch.search(query, from, to, pageRequest)
+                : itemSearchEngine.search(query, from, to, pageRequest);
+    }
+
+    @Override
+    public List<ItemSuggestionDto> suggestItems(String prefix, int size) {
+        log.info("ItemService: Подсказки по префиксу: '{}', размер={}", prefix, size);
+        if (size < 1 || size > itemSuggestIndex.getTopSize()) {
+            throw new ValidationException("количество подсказок должно быть от 1 до " + itemSuggestIndex.getTopSize());
+        }
+        if (prefix.isBlank()) {
+            return List.of();
+        }
+        List<ItemSuggestionDto> suggestions = itemSuggestIndex.suggest(prefix, size);
+        log.info("ItemService: Найдено подсказок по префиксу '{}': {}", prefix, suggestions.size());
+        return suggestions;
     }
 
     @Override
@@ -127,6 +199,58 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new NotFoundException("вещь c id = " + itemId + " не найдена"));
     }
 
+    @Override
+    public List<Item> getItemsByIds(Collection<Long> itemIds) {
+        log.info("ItemService: Получение вещей по списку id: {}", itemIds);
+        return itemRepository.findAllById(itemIds);
+    }
+
+    @Override
+    public void applyNewBookings(List<Booking> bookings) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, List<Booking>> bookingsByItem = bookings.stream()
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
+        bookingsByItem.forEach((itemId, itemBookings) -> {
+            if (itemBookings.stream().anyMatch(booking -> !booking.getStart().isAfter(now))) {
+                refreshBookingDates(itemId);
+                return;
+            }
+            itemBookings.stream()
+                    .min(Comparator.comparing(Booking::getStart))
+                    .ifPresent(next -> itemRepository.offerNextBooking(itemId, next.getId(), next.getStart()));
+        });
+    }
+
+    @Override
+    public void refreshBookingDates(Long itemId) {
+        refreshBookingDates(Item.builder().id(itemId).build());
+    }
+
+    @Override
+    public void refreshPassedBookingDates() {
+        List<Long> itemIds = itemRepository.findIdsWithNextBookingStartedBefore(LocalDateTime.now());
+        itemIds.forEach(this::refreshBookingDates);
+        if (!itemIds.isEmpty()) {
+            log.info("ItemService: Сдвинуты даты бронирований вещей: количество={}", itemIds.size());
+        }
+    }
+
+    private void refreshBookingDates(Item item) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<Booking> nextBooking = bookingRepository.findFirstByItemIdAndStatusInAndStartAfterOrderByStartAsc(
+                item.getId(), BookingIntervalIndex.BLOCKING_STATUSES, now);
+        Optional<Booking> lastBooking = bookingRepository.findFirstByItemIdAndStatusInAndStartLessThanEqualOrderByStartDesc(
+                item.getId(), BookingIntervalIndex.BLOCKING_STATUSES, now);
+        item.setLastBookingId(lastBooking.map(Booking::getId).orElse(null));
+        item.setLastBookingStart(lastBooking.map(Booking::getStart).orElse(null));
+        item.setNextBookingId(nextBooking.map(Booking::getId).orElse(null));
+        item.setNextBookingStart(nextBooking.map(Booking::getStart).orElse(null));
+        itemRepository.updateBookingDates(item.getId(), item.getLastBookingId(), item.getLastBookingStart(),
+                item.getNextBookingId(), item.getNextBookingStart());
+        log.info("ItemService: Даты бронирований вещи пересчитаны: itemId={}, last={}, next={}", item.getId(),
+                item.getLastBookingStart(), item.getNextBookingStart());
+    }
+
     @Override
     public CommentDto addComment(Long userId, Long itemId, NewCommentAddRequest newCommentAddRequest) {
         log.info("ItemService: Добавление комментария: пользовательId={}, itemId={}, запрос={}", userId, itemId, newCommentAddRequest);
@@ -136,12 +260,16 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new NotFoundException("вещь c id = " + itemId + " не найдена"));
         Booking booking = bookingRepository
                 .findFirstByBookerAndItemAndEndBeforeOrderByEndDesc(author, item, LocalDateTime.now())
-                .orElseThrow(() -> new ValidationException("бронирование не найдено"));
-        if (!booking.getBooker().getId().equals(author.getId())) {
+                .orElse(null);
+        if (booking == null) {
+            // давно завершённое бронирование могло уже уйти в bookings_archive
+            if (!bookingRepository.existsArchivedByBookerAndItemEndedBefore(author.getId(), itemId, LocalDateTime.now())) {
+                throw new ValidationException("бронирование не найдено");
+            }
+        } else if (!booking.getBooker().getId().equals(author.getId())) {
             log.warn("ItemService: Пользователь {} не может оставить комментарий к itemId={}", userId, itemId);
             throw new ValidationException("пользователь не может оставить комментарий");
-        }
-        if (booking.getEnd().isAfter(LocalDateTime.now())) {
+        } else if (booking.getEnd().isAfter(LocalDateTime.now())) {
             log.warn("ItemService: Попытка оставить комментарий до завершения бронирования: userId={}, itemId={}", userId, itemId);
             throw new ValidationException("нельзя оставить комментарий до завершения бронирования");
         }
@@ -152,4 +280,44 @@ public class ItemServiceImpl implements ItemService {
         return commentMapStruct.toCommentDto(newComment);
     }
 
-}
\ No newline at end of file
+    @Override
+    public ItemAvailabilityDto getItemAvailability(Long itemId, LocalDate from, LocalDate to, AvailabilityUnit unit) {
+        log.info("ItemService: Получение календаря занятости: itemId={}, from={}, to={}, unit={}", itemId, from, to, unit);
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new ValidationException("период должен быть задан и from не может быть позже to");
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        int maxDays = unit == AvailabilityUnit.HOUR ? MAX_AVAILABILITY_HOURLY_DAYS : MAX_AVAILABILITY_DAYS;
+        if (days > maxDays) {
+            throw new ValidationException("период не может превышать " + maxDays + " дн.");
+        }
+        getItemById(itemId);
+        List<AvailabilitySlotDto> slots;
+        if (unit == AvailabilityUnit.HOUR) {
+            LocalDateTime start = from.atStartOfDay();
+            BitSet busy = itemAvailabilityIndex.busyHours(itemId, start, to.plusDays(1).atStartOfDay());
+            slots = IntStream.range(0, (int) days * 24)
+                    .mapToObj(hour -> new AvailabilitySlotDto(start.plusHours(hour), !busy.get(hour)))
+                    .toList();
+        } else {
+            BitSet busy = itemAvailabilityIndex.busyDays(itemId, from, to);
+            slots = IntStream.range(0, (int) days)
+                    .mapToObj(day -> new AvailabilitySlotDto(from.plusDays(day).atStartOfDay(), !busy.get(day)))
+                    .toList();
+        }
+        log.info("ItemService: Календарь занятости построен: itemId={}, слотов={}, занято={}", itemId, slots.size(),
+                slots.stream().filter(slot -> !slot.getFree()).count());
+        return ItemAvailabilityDto.builder()
+                .itemId(itemId)
+                .from(from)
+                .to(to)
+                .unit(unit)
+                .slots(slots)
+                .build();
+    }
+
+    private static String searchableText(Item item) {
+        return item.getName() + " " + item.getDescription();
+    }
+
+}
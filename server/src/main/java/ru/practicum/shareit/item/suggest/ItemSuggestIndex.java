@@ -0,0 +1,291 @@
+package ru.practicum.shareit.item.suggest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemNamePopularity;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Сжатое префиксное дерево названий доступных вещей. В каждом узле лежит готовый топ вещей поддерева
+// по популярности, поэтому подсказка — спуск по префиксу и копия начала массива, без обхода поддерева и без БД.
+// Добавление, удаление и смена популярности пересчитывают топы только на пути от корня до узла названия.
+@Slf4j
+@Component
+public class ItemSuggestIndex {
+
+    private static final Entry[] EMPTY = new Entry[0];
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::popularity).reversed()
+            .thenComparing(Entry::name)
+            .thenComparing(Entry::id);
+
+    private final ItemRepository itemRepository;
+    private final int topSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entriesById = new HashMap<>();
+    private final Node root = new Node("");
+
+    public ItemSuggestIndex(ItemRepository itemRepository,
+                            @Value("${shareit.items.suggest.top-size:10}") int topSize) {
+        this.itemRepository = itemRepository;
+        this.topSize = topSize;
+    }
+
+    public int getTopSize() {
+        return topSize;
+    }
+
+    // Запрос в БД идёт под блокировкой записи, чтобы изменения, пришедшие во время загрузки, не потерялись
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            List<ItemNamePopularity> items = itemRepository.findAvailableNamePopularity();
+            items.forEach(item -> upsert(item.id(), item.name(), item.bookings()));
+            log.info("ItemSuggestIndex: Индекс подсказок построен, вещей={}", entriesById.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            if (!Boolean.TRUE.equals(item.getAvailable())) {
+                remove(item.getId());
+                return;
+            }
+            Entry existing = entriesById.get(item.getId());
+            upsert(item.getId(), item.getName(), existing != null ? existing.popularity() : 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            remove(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Популярность пересчитывается из БД целиком, поэтому повторная доставка событий ничего не портит
+    public void refreshPopularity(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        List<ItemNamePopularity> items = itemRepository.findAvailableNamePopularityByIds(itemIds);
+        lock.writeLock().lock();
+        try {
+            items.stream()
+                    .filter(item -> entriesById.containsKey(item.id()))
+                    .forEach(item -> upsert(item.id(), item.name(), item.bookings()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ItemSuggestionDto> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = find(key);
+            if (node == null) {
+                return List.of();
+            }
+            Entry[] top = node.top;
+            List<ItemSuggestionDto> result = new ArrayList<>(Math.min(limit, top.length));
+            for (int i = 0; i < top.length && i < limit; i++) {
+                result.add(new ItemSuggestionDto(top[i].id(), top[i].name()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void upsert(Long itemId, String name, long popularity) {
+        Entry entry = new Entry(itemId, name, normalize(name), popularity);
+        Entry existing = entriesById.put(itemId, entry);
+        if (entry.equals(existing)) {
+            return;
+        }
+        if (existing != null) {
+            detach(existing);
+        }
+        attach(entry);
+    }
+
+    private void remove(Long itemId) {
+        Entry existing = entriesById.remove(itemId);
+        if (existing != null) {
+            detach(existing);
+        }
+    }
+
+    // Узел, в котором заканчивается префикс; если префикс обрывается посреди метки ребра — узел под этим ребром
+    private Node find(String prefix) {
+        Node node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(pos));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, prefix, pos);
+            if (pos + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            pos += common;
+        }
+        return node;
+    }
+
+    private void attach(Entry entry) {
+        String key = entry.key();
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int pos = 0;
+        while (pos < key.length()) {
+            Node child = node.children.get(key.charAt(pos));
+            if (child == null) {
+                child = new Node(key.substring(pos));
+                node.children.put(key.charAt(pos), child);
+                pos = key.length();
+            } else {
+                int common = commonPrefix(child.label, key, pos);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+                pos += common;
+            }
+            node = child;
+            path.add(node);
+        }
+        node.entries.add(entry);
+        path.forEach(pathNode -> pathNode.offer(entry, topSize));
+    }
+
+    private void detach(Entry entry) {
+        String key = entry.key();
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int pos = 0;
+        while (pos < key.length()) {
+            node = node.children.get(key.charAt(pos));
+            pos += node.label.length();
+            path.add(node);
+        }
+        node.entries.remove(entry);
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node current = path.get(i);
+            Node parent = path.get(i - 1);
+            char edge = current.label.charAt(0);
+            if (current.entries.isEmpty() && current.children.isEmpty()) {
+                parent.children.remove(edge);
+            } else if (current.entries.isEmpty() && current.children.size() == 1) {
+                // Промежуточный узел без названий и с одним потомком склеивается с ним, дерево остаётся сжатым
+                Node child = current.children.values().iterator().next();
+                child.label = current.label + child.label;
+                parent.children.put(edge, child);
+            } else if (current.holds(entry)) {
+                current.recompute(topSize);
+            }
+        }
+        if (root.holds(entry)) {
+            root.recompute(topSize);
+        }
+    }
+
+    // Ребро parent -> child делится на два: новый узел получает первые at символов метки и копию топа child
+    private static Node split(Node parent, Node child, int at) {
+        Node middle = new Node(child.label.substring(0, at));
+        child.label = child.label.substring(at);
+        middle.children.put(child.label.charAt(0), child);
+        middle.top = child.top;
+        parent.children.put(middle.label.charAt(0), middle);
+        return middle;
+    }
+
+    private static int commonPrefix(String label, String key, int pos) {
+        int i = 0;
+        while (i < label.length() && pos + i < key.length() && label.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String normalize(String text) {
+        return text.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(Long id, String name, String key, long popularity) {
+    }
+
+    private static final class Node {
+
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Entry> entries = new ArrayList<>(1);
+        // Отсортирован по RANKING; массив только заменяется целиком, чтобы читатели видели согласованную копию
+        private Entry[] top = EMPTY;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private boolean holds(Entry entry) {
+            for (Entry candidate : top) {
+                if (candidate.equals(entry)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void offer(Entry entry, int topSize) {
+            if (top.length == topSize && RANKING.compare(entry, top[top.length - 1]) >= 0) {
+                return;
+            }
+            int index = Arrays.binarySearch(top, entry, RANKING);
+            int insertAt = index >= 0 ? index : -index - 1;
+            Entry[] updated = new Entry[Math.min(top.length + 1, topSize)];
+            System.arraycopy(top, 0, updated, 0, insertAt);
+            updated[insertAt] = entry;
+            System.arraycopy(top, insertAt, updated, insertAt + 1, updated.length - insertAt - 1);
+            top = updated;
+        }
+
+        // Топы потомков уже верны, поэтому топ узла собирается из них и собственных названий без обхода поддерева
+        private void recompute(int topSize) {
+            List<Entry> candidates = new ArrayList<>(entries);
+            children.values().forEach(child -> candidates.addAll(Arrays.asList(child.top)));
+            candidates.sort(RANKING);
+            top = candidates.subList(0, Math.min(topSize, candidates.size())).toArray(EMPTY);
+        }
+
+    }
+
+}
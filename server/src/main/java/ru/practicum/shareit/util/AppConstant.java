@@ -7,4 +7,8 @@ public class AppConstant {
 
     public static final String CUSTOM_REQUEST_HEADER_USER_ID = "X-Sharer-User-Id";
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String CUSTOM_RESPONSE_HEADER_NEXT_CURSOR = "X-Next-Cursor";
+
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package ru.practicum.shareit.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.ConflictException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Ответы на запросы с Idempotency-Key. Хранилище ограничено по числу ключей (вытесняется самый старый)
+// и по времени жизни. Повтор с тем же ключом, пришедший до завершения первого запроса,
+// ждёт его результата; неуспешный запрос ключ не занимает, и клиент может повторить его.
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>();
+
+    @Autowired
+    public IdempotencyStore(@Value("${shareit.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${shareit.idempotency.ttl:PT24H}") Duration ttl) {
+        this(maxEntries, ttl, Clock.systemDefaultZone());
+    }
+
+    IdempotencyStore(int maxEntries, Duration ttl, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, Long userId, String idempotencyKey, Object request, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        Key key = new Key(scope, userId, idempotencyKey);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Entry existing;
+        synchronized (entries) {
+            evictExpired();
+            existing = entries.get(key);
+            if (existing == null) {
+                entries.put(key, new Entry(request, result, clock.millis()));
+                if (entries.size() > maxEntries) {
+                    Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        if (existing != null) {
+            if (!Objects.equals(existing.request(), request)) {
+                log.warn("IdempotencyStore: Ключ повторно использован с другим запросом: scope={}, userId={}, key={}",
+                        scope, userId, idempotencyKey);
+                throw new ConflictException("ключ идемпотентности уже использован для другого запроса");
+            }
+            log.info("IdempotencyStore: Повтор запроса, возвращается сохранённый ответ: scope={}, userId={}, key={}",
+                    scope, userId, idempotencyKey);
+            try {
+                return (T) existing.result().join();
+            } catch (CompletionException e) {
+                // первый запрос завершился ошибкой и освободил ключ — выполняем заново
+                return execute(scope, userId, idempotencyKey, request, action);
+            }
+        }
+        try {
+            T value = action.get();
+            result.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(key);
+            }
+            result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Ключи лежат в порядке создания, поэтому просроченные всегда в начале
+    private void evictExpired() {
+        long expiredBefore = clock.millis() - ttlMillis;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().createdAt() < expiredBefore) {
+            iterator.remove();
+        }
+    }
+
+    private record Key(String scope, Long userId, String idempotencyKey) {
+    }
+
+    private record Entry(Object request, CompletableFuture<Object> result, long createdAt) {
+    }
+
+}
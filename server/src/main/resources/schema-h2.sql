@@ -0,0 +1,43 @@
+CREATE TABLE IF NOT EXISTS bookings (
+    booking_id  BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    start_date  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    user_id     BIGINT NOT NULL,
+    item_id     BIGINT NOT NULL,
+    owner_id    BIGINT NOT NULL,
+    status      VARCHAR(32) NOT NULL,
+    version     BIGINT NOT NULL DEFAULT 0,
+    phase       VARCHAR(16) NOT NULL,
+    phase_until TIMESTAMP WITHOUT TIME ZONE,
+    created     TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_booking PRIMARY KEY (booking_id),
+    CONSTRAINT fk_booking_user FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE,
+    CONSTRAINT fk_booking_item FOREIGN KEY (item_id) REFERENCES items (item_id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS ix_booking_booker_start ON bookings (user_id, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_item_start ON bookings (item_id, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_item_period ON bookings (item_id, start_date, end_date);
+
+CREATE INDEX IF NOT EXISTS ix_booking_owner_start ON bookings (owner_id, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_booker_phase ON bookings (user_id, phase, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_owner_phase ON bookings (owner_id, phase, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_phase_until ON bookings (phase_until);
+
+CREATE INDEX IF NOT EXISTS ix_booking_owner_state ON bookings (owner_id, status, phase);
+
+CREATE INDEX IF NOT EXISTS ix_booking_status_created ON bookings (status, created);
+
+ALTER TABLE items DROP CONSTRAINT fk_item_user;
+ALTER TABLE items ADD CONSTRAINT fk_item_user FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE;
+
+ALTER TABLE bookings DROP CONSTRAINT fk_booking_user;
+ALTER TABLE bookings ADD CONSTRAINT fk_booking_user FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE;
+
+ALTER TABLE bookings DROP CONSTRAINT fk_booking_item;
+ALTER TABLE bookings ADD CONSTRAINT fk_booking_item FOREIGN KEY (item_id) REFERENCES items (item_id) ON DELETE CASCADE;
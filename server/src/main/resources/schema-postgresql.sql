@@ -0,0 +1,205 @@
+-- Бронирования секционированы по месяцам start_date. Ключ секционирования входит в первичный ключ,
+-- а booking_id выдаётся из bookings_seq, поэтому identity-колонка не нужна. Секции на ближайшие месяцы
+-- создаёт create_booking_partitions (её же периодически вызывает сервер), остальное попадает в bookings_default.
+CREATE TABLE IF NOT EXISTS bookings (
+    booking_id  BIGINT NOT NULL DEFAULT nextval('bookings_seq'),
+    start_date  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    user_id     BIGINT NOT NULL,
+    item_id     BIGINT NOT NULL,
+    owner_id    BIGINT NOT NULL,
+    status      VARCHAR(32) NOT NULL,
+    version     BIGINT NOT NULL DEFAULT 0,
+    phase       VARCHAR(16) NOT NULL,
+    phase_until TIMESTAMP WITHOUT TIME ZONE,
+    created     TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_booking PRIMARY KEY (booking_id, start_date),
+    CONSTRAINT fk_booking_user FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE,
+    CONSTRAINT fk_booking_item FOREIGN KEY (item_id) REFERENCES items (item_id) ON DELETE CASCADE
+) PARTITION BY RANGE (start_date);
+
+-- Таблица, созданная до появления колонок, получает их здесь: CREATE TABLE IF NOT EXISTS её не меняет.
+-- Колонки добавляются без NOT NULL, заполняются по данным строк и только потом становятся обязательными.
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+DO 'BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema() AND table_name = ''bookings'' AND column_name = ''owner_id'') THEN
+        ALTER TABLE bookings ADD COLUMN owner_id BIGINT;
+        UPDATE bookings b SET owner_id = i.user_id FROM items i WHERE i.item_id = b.item_id;
+        ALTER TABLE bookings ALTER COLUMN owner_id SET NOT NULL;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema() AND table_name = ''bookings'' AND column_name = ''phase'') THEN
+        ALTER TABLE bookings ADD COLUMN phase VARCHAR(16), ADD COLUMN phase_until TIMESTAMP WITHOUT TIME ZONE;
+        UPDATE bookings SET
+            phase = CASE WHEN start_date > LOCALTIMESTAMP THEN ''FUTURE''
+                         WHEN end_date > LOCALTIMESTAMP THEN ''CURRENT''
+                         ELSE ''PAST'' END,
+            phase_until = CASE WHEN start_date > LOCALTIMESTAMP THEN start_date
+                               WHEN end_date > LOCALTIMESTAMP THEN end_date END;
+        ALTER TABLE bookings ALTER COLUMN phase SET NOT NULL;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema() AND table_name = ''bookings'' AND column_name = ''created'') THEN
+        ALTER TABLE bookings ADD COLUMN created TIMESTAMP WITHOUT TIME ZONE;
+        UPDATE bookings SET created = start_date;
+        ALTER TABLE bookings ALTER COLUMN created SET DEFAULT CURRENT_TIMESTAMP,
+                             ALTER COLUMN created SET NOT NULL;
+    END IF;
+END';
+
+CREATE INDEX IF NOT EXISTS ix_booking_booker_start ON bookings (user_id, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_item_start ON bookings (item_id, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_item_period ON bookings (item_id, start_date, end_date);
+
+CREATE INDEX IF NOT EXISTS ix_booking_owner_start ON bookings (owner_id, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_booker_phase ON bookings (user_id, phase, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_owner_phase ON bookings (owner_id, phase, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_phase_until ON bookings (phase_until);
+
+CREATE INDEX IF NOT EXISTS ix_booking_owner_state ON bookings (owner_id, status, phase);
+
+-- Частичный индекс держит только ожидающие решения бронирования, которые просматривает WaitingBookingExpirer
+CREATE INDEX IF NOT EXISTS ix_booking_waiting_created ON bookings (created, start_date) WHERE status = 'WAITING';
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Исключающее ограничение нельзя объявить на секционированной таблице без равенства по ключу
+-- секционирования, поэтому оно вешается на каждую секцию и ловит пересечения только внутри месяца.
+-- Пересечения через границу секций проверяет триггер check_booking_period_overlap.
+CREATE OR REPLACE FUNCTION add_booking_period_exclusion(partition_name TEXT) RETURNS void AS '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conname = ''ex_'' || partition_name || ''_period''
+                     AND conrelid = partition_name::regclass) THEN
+        EXECUTE format(''ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist ''
+                           || ''(item_id WITH =, tsrange(start_date, end_date, %L) WITH &&) ''
+                           || ''WHERE (status IN (%L, %L))'',
+                       partition_name, ''ex_'' || partition_name || ''_period'', ''[)'', ''WAITING'', ''APPROVED'');
+    END IF;
+END' LANGUAGE plpgsql;
+
+-- Создаёт месячные секции с текущего месяца на months_ahead вперёд. Строки нового месяца, успевшие
+-- попасть в bookings_default, переносятся в созданную секцию до её подключения.
+CREATE OR REPLACE FUNCTION create_booking_partitions(months_ahead INTEGER) RETURNS INTEGER AS '
+DECLARE
+    month_start    DATE := date_trunc(''month'', now())::date;
+    month_end      DATE;
+    partition_name TEXT;
+    created        INTEGER := 0;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = ''bookings''::regclass) <> ''p'' THEN
+        RETURN 0;
+    END IF;
+    PERFORM pg_advisory_xact_lock(hashtext(''create_booking_partitions''));
+    FOR i IN 0..months_ahead LOOP
+        month_end := (month_start + INTERVAL ''1 month'')::date;
+        partition_name := ''bookings_'' || to_char(month_start, ''YYYY_MM'');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format(''CREATE TABLE %I (LIKE bookings INCLUDING DEFAULTS)'', partition_name);
+            PERFORM add_booking_period_exclusion(partition_name);
+            EXECUTE format(''WITH moved AS (DELETE FROM bookings_default ''
+                               || ''WHERE start_date >= %L AND start_date < %L RETURNING *) ''
+                               || ''INSERT INTO %I SELECT * FROM moved'',
+                           month_start, month_end, partition_name);
+            EXECUTE format(''ALTER TABLE bookings ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)'',
+                           partition_name, month_start, month_end);
+            created := created + 1;
+        END IF;
+        month_start := month_end;
+    END LOOP;
+    RETURN created;
+END' LANGUAGE plpgsql;
+
+-- Глобальная проверка пересечений для секционированной таблицы: блокировка по item_id до конца транзакции
+-- выстраивает в очередь вставки по одной вещи, поэтому проверка по всем секциям видит все зафиксированные
+-- до неё бронирования. Ключ из двух int4 с собственным пространством hashtext('booking_period') не совпадёт
+-- с однокомпонентными ключами вроде блокировки create_booking_partitions; id вещи приводится к int4 по модулю.
+-- Ошибка поднимается с тем же SQLState, что и у исключающего ограничения.
+CREATE OR REPLACE FUNCTION check_booking_period_overlap() RETURNS trigger AS '
+BEGIN
+    IF NEW.status NOT IN (''WAITING'', ''APPROVED'') THEN
+        RETURN NEW;
+    END IF;
+    PERFORM pg_advisory_xact_lock(hashtext(''booking_period''), (NEW.item_id % 2147483647)::integer);
+    IF EXISTS (SELECT 1 FROM bookings
+               WHERE item_id = NEW.item_id
+                 AND booking_id <> NEW.booking_id
+                 AND status IN (''WAITING'', ''APPROVED'')
+                 AND start_date < NEW.end_date
+                 AND end_date > NEW.start_date) THEN
+        RAISE EXCEPTION ''вещь уже забронирована на указанный период: item_id=%'', NEW.item_id
+            USING ERRCODE = ''exclusion_violation'', CONSTRAINT = ''ex_booking_item_period'';
+    END IF;
+    RETURN NEW;
+END' LANGUAGE plpgsql;
+
+DO 'BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = ''bookings''::regclass) = ''p'' THEN
+        CREATE TABLE IF NOT EXISTS bookings_default PARTITION OF bookings DEFAULT;
+        PERFORM add_booking_period_exclusion(''bookings_default'');
+        PERFORM create_booking_partitions(3);
+        DROP TRIGGER IF EXISTS tr_booking_period_overlap ON bookings;
+        CREATE TRIGGER tr_booking_period_overlap
+            BEFORE INSERT OR UPDATE OF item_id, start_date, end_date, status ON bookings
+            FOR EACH ROW EXECUTE FUNCTION check_booking_period_overlap();
+    ELSIF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''ex_booking_item_period'') THEN
+        ALTER TABLE bookings ADD CONSTRAINT ex_booking_item_period
+            EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date, ''[)'') WITH &&)
+            WHERE (status IN (''WAITING'', ''APPROVED''));
+    END IF;
+END';
+
+DO 'BEGIN
+    IF (SELECT last_value FROM bookings_seq) < (SELECT COALESCE(MAX(booking_id), 0) FROM bookings) THEN
+        PERFORM setval(''bookings_seq'', (SELECT MAX(booking_id) FROM bookings) + 50);
+    END IF;
+    IF (SELECT last_value FROM booking_events_seq) < (SELECT COALESCE(MAX(event_id), 0) FROM booking_events) THEN
+        PERFORM setval(''booking_events_seq'', (SELECT MAX(event_id) FROM booking_events) + 50);
+    END IF;
+END';
+
+-- Даты последнего и следующего бронирования у вещей, заведённых до появления колонок: заполняются только
+-- у вещей, где обе даты пусты, хотя блокирующие бронирования есть, поэтому на заполненной базе ничего не меняют
+UPDATE items i SET last_booking_id = past.booking_id,
+                   last_booking_start = past.start_date,
+                   next_booking_id = upcoming.booking_id,
+                   next_booking_start = upcoming.start_date
+FROM items t
+LEFT JOIN LATERAL (SELECT b.booking_id, b.start_date FROM bookings b
+                   WHERE b.item_id = t.item_id AND b.status IN ('WAITING', 'APPROVED')
+                     AND b.start_date <= LOCALTIMESTAMP
+                   ORDER BY b.start_date DESC LIMIT 1) past ON TRUE
+LEFT JOIN LATERAL (SELECT b.booking_id, b.start_date FROM bookings b
+                   WHERE b.item_id = t.item_id AND b.status IN ('WAITING', 'APPROVED')
+                     AND b.start_date > LOCALTIMESTAMP
+                   ORDER BY b.start_date LIMIT 1) upcoming ON TRUE
+WHERE t.item_id = i.item_id
+  AND i.last_booking_id IS NULL AND i.next_booking_id IS NULL
+  AND (past.booking_id IS NOT NULL OR upcoming.booking_id IS NOT NULL);
+
+CREATE OR REPLACE FUNCTION sync_booking_owner() RETURNS trigger AS '
+BEGIN
+    UPDATE bookings SET owner_id = NEW.user_id WHERE item_id = NEW.item_id;
+    RETURN NEW;
+END' LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS tr_item_owner_sync ON items;
+
+CREATE TRIGGER tr_item_owner_sync
+    AFTER UPDATE OF user_id ON items
+    FOR EACH ROW WHEN (OLD.user_id IS DISTINCT FROM NEW.user_id)
+    EXECUTE FUNCTION sync_booking_owner();
+
+-- Полнотекстовый поиск вещей: вектор по названию (вес A) и описанию (вес B) вычисляется самой БД при записи
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (setweight(to_tsvector('russian', name), 'A')
+        || setweight(to_tsvector('russian', description), 'B')) STORED;
+
+CREATE INDEX IF NOT EXISTS ix_item_search ON items USING gin (search_vector);
@@ -22,23 +22,66 @@ CREATE TABLE IF NOT EXISTS items (
     is_available BOOLEAN NOT NULL DEFAULT TRUE,
     user_id     BIGINT NOT NULL,
     request_id  BIGINT,
+    last_booking_id    BIGINT,
+    last_booking_start TIMESTAMP WITHOUT TIME ZONE,
+    next_booking_id    BIGINT,
+    next_booking_start TIMESTAMP WITHOUT TIME ZONE,
     CONSTRAINT pk_item PRIMARY KEY (item_id),
     CONSTRAINT fk_item_user FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE,
     CONSTRAINT fk_item_request FOREIGN KEY (request_id) REFERENCES requests (request_id) ON DELETE SET NULL
 );
 
-CREATE TABLE IF NOT EXISTS bookings (
-    booking_id  BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+CREATE INDEX IF NOT EXISTS ix_item_owner ON items (user_id);
+
+-- Таблица вещей, созданная до появления дат бронирований, получает колонки здесь; заполняет их schema-postgresql.sql
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booking_id BIGINT;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booking_start TIMESTAMP WITHOUT TIME ZONE;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_id BIGINT;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_start TIMESTAMP WITHOUT TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS ix_item_next_booking ON items (next_booking_start);
+
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS bookings_archive (
+    booking_id  BIGINT NOT NULL,
     start_date  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     end_date    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     user_id     BIGINT NOT NULL,
     item_id     BIGINT NOT NULL,
+    owner_id    BIGINT NOT NULL,
     status      VARCHAR(32) NOT NULL,
-    CONSTRAINT pk_booking PRIMARY KEY (booking_id),
-    CONSTRAINT fk_booking_user FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE,
-    CONSTRAINT fk_booking_item FOREIGN KEY (item_id) REFERENCES items (item_id) ON DELETE CASCADE
+    archived_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_booking_archive PRIMARY KEY (booking_id),
+    CONSTRAINT fk_booking_archive_user FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE,
+    CONSTRAINT fk_booking_archive_item FOREIGN KEY (item_id) REFERENCES items (item_id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS ix_booking_archive_booker_start ON bookings_archive (user_id, start_date DESC, booking_id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_booking_archive_owner_start ON bookings_archive (owner_id, start_date DESC, booking_id DESC);
+
+-- Исходящий журнал событий бронирований: строки живут до передачи слушателям, поэтому таблица остаётся маленькой
+CREATE TABLE IF NOT EXISTS booking_events (
+    event_id   BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    type       VARCHAR(16) NOT NULL,
+    booking_id BIGINT NOT NULL,
+    item_id    BIGINT NOT NULL,
+    owner_id   BIGINT NOT NULL,
+    booker_id  BIGINT NOT NULL,
+    created    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    attempts   INTEGER DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_booking_event PRIMARY KEY (event_id)
+);
+
+-- Журнал, созданный до появления счётчика попыток, получает колонку здесь
+ALTER TABLE booking_events ADD COLUMN IF NOT EXISTS attempts INTEGER DEFAULT 0 NOT NULL;
+
+CREATE SEQUENCE IF NOT EXISTS booking_events_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS comments (
      comment_id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
      text       VARCHAR(512) NOT NULL,
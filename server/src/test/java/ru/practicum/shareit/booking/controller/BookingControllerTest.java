@@ -8,11 +8,19 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.dto.NewBookingAddRequest;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.model.StateParam;
 import ru.practicum.shareit.booking.service.BookingService;
@@ -20,18 +28,25 @@ import ru.practicum.shareit.exception.AccessException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.IdempotencyStore;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static ru.practicum.shareit.util.AppConstant.CUSTOM_REQUEST_HEADER_USER_ID;
+import static ru.practicum.shareit.util.AppConstant.IDEMPOTENCY_KEY_HEADER;
+import static ru.practicum.shareit.util.AppConstant.CUSTOM_RESPONSE_HEADER_NEXT_CURSOR;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(BookingController.class)
+@Import(IdempotencyStore.class)
 class BookingControllerTest {
 
     @Autowired
@@ -40,6 +55,9 @@ class BookingControllerTest {
     @MockBean
     private BookingService bookingService;
 
+    @MockBean
+    private UserService userService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -101,6 +119,61 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.booker").value(userDto));
     }
 
+    @Test
+    void addBooking_ShouldReplayResponse_WhenIdempotencyKeyRepeated() throws Exception {
+        Mockito.when(bookingService.addBooking(eq(1L), any(NewBookingAddRequest.class)))
+                .thenReturn(bookingDto);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/bookings")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L)
+                            .header(IDEMPOTENCY_KEY_HEADER, "booking-key")
+                            .content(objectMapper.writeValueAsString(newBookingAddRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(bookingDto.getId()));
+        }
+        Mockito.verify(bookingService, Mockito.times(1)).addBooking(eq(1L), any(NewBookingAddRequest.class));
+    }
+
+    @Test
+    void addBookings_ShouldReturnResultPerEntry() throws Exception {
+        Mockito.when(bookingService.addBookings(eq(1L), any()))
+                .thenReturn(List.of(
+                        BookingBatchResultDto.builder().index(0).bookingId(1L).status(BookingStatus.WAITING).build(),
+                        BookingBatchResultDto.builder().index(1).error("вещь уже забронирована на указанный период").build()));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L)
+                        .content(objectMapper.writeValueAsString(List.of(newBookingAddRequest, newBookingAddRequest))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookingId").value(1L))
+                .andExpect(jsonPath("$[0].status").value("WAITING"))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value("вещь уже забронирована на указанный период"));
+    }
+
+    @Test
+    void approvedBookings_ShouldReturnUpdatedAndSkippedIds() throws Exception {
+        Mockito.when(bookingService.approvedBookings(1L, List.of(1L, 2L), true))
+                .thenReturn(BookingDecisionResultDto.builder()
+                        .status(BookingStatus.APPROVED)
+                        .updated(List.of(1L))
+                        .skipped(List.of(2L))
+                        .build());
+
+        mockMvc.perform(patch("/bookings/batch")
+                        .param("approved", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L)
+                        .content(objectMapper.writeValueAsString(List.of(1L, 2L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("APPROVED"))
+                .andExpect(jsonPath("$.updated[0]").value(1L))
+                .andExpect(jsonPath("$.skipped[0]").value(2L));
+    }
+
     @Test
     void approvedBooking_ShouldReturnBookingDtoWithApprovedStatus() throws Exception {
         BookingDto approvedBooking = BookingDto.builder()
@@ -137,30 +210,83 @@ class BookingControllerTest {
 
     @Test
     void getUserBookings_ShouldReturnListBookings() throws Exception {
-        Mockito.when(bookingService.getUserBookings(1L, StateParam.ALL))
-                .thenReturn(List.of(bookingDto));
+        Mockito.when(bookingService.getUserBookings(1L, StateParam.ALL, null, 20))
+                .thenReturn(BookingPageDto.builder()
+                        .bookings(List.of(bookingDto))
+                        .nextCursor("next")
+                        .build());
 
         mockMvc.perform(get("/bookings")
                         .param("state", "ALL")
                         .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L))
                 .andExpect(status().isOk())
+                .andExpect(header().string(CUSTOM_RESPONSE_HEADER_NEXT_CURSOR, "next"))
                 .andExpect(jsonPath("[0].id").value(bookingDto.getId()))
                 .andExpect(jsonPath("[0].status").value("WAITING"));
     }
 
     @Test
     void getBookingsForItemsByOwnerId_ShouldReturnListBookings() throws Exception {
-        Mockito.when(bookingService.getBookingsForItemsByOwnerId(1L, StateParam.ALL))
-                .thenReturn(List.of(bookingDto));
+        Mockito.when(bookingService.getBookingsForItemsByOwnerId(1L, StateParam.ALL, null, 20))
+                .thenReturn(BookingPageDto.builder()
+                        .bookings(List.of(bookingDto))
+                        .build());
 
         mockMvc.perform(get("/bookings/owner")
                         .param("state", "ALL")
                         .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CUSTOM_RESPONSE_HEADER_NEXT_CURSOR))
                 .andExpect(jsonPath("$[0].id").value(bookingDto.getId()))
                 .andExpect(jsonPath("$[0].status").value("WAITING"));
     }
 
+    @Test
+    void getOwnerBookingSummary_ShouldReturnCountsPerState() throws Exception {
+        Mockito.when(bookingService.getOwnerBookingSummary(1L))
+                .thenReturn(BookingSummaryDto.builder().all(6).current(1).past(2).future(3).waiting(2).rejected(1).build());
+
+        mockMvc.perform(get("/bookings/owner/summary")
+                        .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(6))
+                .andExpect(jsonPath("$.future").value(3))
+                .andExpect(jsonPath("$.rejected").value(1));
+    }
+
+    @Test
+    void exportOwnerBookings_ShouldStreamOneJsonObjectPerLine() throws Exception {
+        BookingDto second = BookingDto.builder().id(2L).status(BookingStatus.APPROVED).build();
+        Mockito.doAnswer(invocation -> {
+            Consumer<BookingDto> consumer = invocation.getArgument(1);
+            consumer.accept(bookingDto);
+            consumer.accept(second);
+            return null;
+        }).when(bookingService).exportOwnerBookings(eq(1L), any());
+
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export")
+                        .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], BookingDto.class).getId()).isEqualTo(bookingDto.getId());
+        assertThat(objectMapper.readValue(lines[1], BookingDto.class)).isEqualTo(second);
+    }
+
+    @Test
+    void exportOwnerBookings_ShouldReturnNotFound_WhenUserDoesNotExist() throws Exception {
+        Mockito.when(userService.getUserById(1L)).thenThrow(new NotFoundException("пользователь не найден"));
+
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void addBooking_ShouldReturnInternalServerError_WhenItemUnavailable() throws Exception {
         Mockito.when(bookingService.addBooking(eq(1L), any(NewBookingAddRequest.class)))
@@ -184,6 +310,18 @@ class BookingControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void approvedBooking_ShouldReturnConflict_WhenBookingChangedConcurrently() throws Exception {
+        Mockito.when(bookingService.approvedBooking(1L, 1L, true))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1L));
+
+        mockMvc.perform(patch("/bookings/{bookingId}", 1L)
+                        .param("approved", "true")
+                        .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
     @Test
     void getBookingByBookerIdOrOwnerId_ShouldReturnNotFound_WhenBookingMissing() throws Exception {
         Mockito.when(bookingService.getBookingByBookerIdOrOwnerId(1L, 1L))
@@ -206,7 +344,7 @@ class BookingControllerTest {
 
     @Test
     void getUserBookings_ShouldReturnInternalError_WhenUnexpectedErrorOccurs() throws Exception {
-        Mockito.when(bookingService.getUserBookings(1L, StateParam.ALL))
+        Mockito.when(bookingService.getUserBookings(1L, StateParam.ALL, null, 20))
                 .thenThrow(new RuntimeException("ошибка получения списка бронирований"));
 
         mockMvc.perform(get("/bookings")
@@ -217,7 +355,7 @@ class BookingControllerTest {
 
     @Test
     void getBookingsForItemsByOwnerId_ShouldReturnNotFound_WhenUserDoesNotExist() throws Exception {
-        Mockito.when(bookingService.getBookingsForItemsByOwnerId(1L, StateParam.ALL))
+        Mockito.when(bookingService.getBookingsForItemsByOwnerId(1L, StateParam.ALL, null, 20))
                 .thenThrow(new NotFoundException("пользователь не найден"));
 
         mockMvc.perform(get("/bookings/owner")
@@ -0,0 +1,139 @@
+package ru.practicum.shareit.booking.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BookingEventDispatcherTest {
+
+    @Mock
+    private BookingEventRepository bookingEventRepository;
+
+    @Mock
+    private BookingEventListener listener;
+
+    @Mock
+    private BookingEventListener failingListener;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingEventDispatcher dispatcher;
+    private BookingEvent first;
+    private BookingEvent second;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new BookingEventDispatcher(bookingEventRepository, List.of(listener), meterRegistry, 2, 10, 3);
+        first = event(1L, LocalDateTime.now().minusMinutes(1));
+        second = event(2L, LocalDateTime.now());
+    }
+
+    @Test
+    void dispatch_ShouldDrainBatchesAndDeleteDeliveredEvents() {
+        BookingEvent third = event(3L, LocalDateTime.now());
+        Mockito.when(bookingEventRepository.findByAttemptsLessThanOrderByIdAsc(3, Limit.of(2)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+
+        dispatcher.dispatch();
+
+        verify(listener).onBookingEvents(List.of(first, second));
+        verify(listener).onBookingEvents(List.of(third));
+        verify(bookingEventRepository).deleteByIds(List.of(1L, 2L));
+        verify(bookingEventRepository).deleteByIds(List.of(3L));
+        assertThat(meterRegistry.get("shareit.bookings.events.dispatched").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("shareit.bookings.events.lag").gauge().value()).isZero();
+    }
+
+    @Test
+    void dispatch_ShouldKeepBatchAndReportLag_WhenListenerFails() {
+        Mockito.when(bookingEventRepository.findByAttemptsLessThanOrderByIdAsc(3, Limit.of(2))).thenReturn(List.of(first, second));
+        Mockito.doThrow(new IllegalStateException("ошибка")).when(listener).onBookingEvents(any());
+
+        dispatcher.dispatch();
+
+        verify(bookingEventRepository, times(1)).findByAttemptsLessThanOrderByIdAsc(3, Limit.of(2));
+        verify(bookingEventRepository, never()).deleteByIds(any());
+        verify(bookingEventRepository).incrementAttempts(Set.of(1L, 2L));
+        assertThat(meterRegistry.get("shareit.bookings.events.lag").gauge().value()).isGreaterThanOrEqualTo(60);
+    }
+
+    @Test
+    void dispatch_ShouldDeliverLaterEvents_WhenListenerAlwaysFailsOnOneEvent() {
+        dispatcher = new BookingEventDispatcher(bookingEventRepository, List.of(failingListener, listener),
+                meterRegistry, 2, 10, 3);
+        BookingEvent third = event(3L, LocalDateTime.now());
+        Mockito.when(bookingEventRepository.findByAttemptsLessThanOrderByIdAsc(3, Limit.of(2)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(first, third));
+        failOn(failingListener, first);
+
+        dispatcher.dispatch();
+        first.setAttempts(1);
+        dispatcher.dispatch();
+
+        verify(failingListener).onBookingEvents(List.of(second));
+        verify(failingListener).onBookingEvents(List.of(third));
+        verify(listener).onBookingEvents(List.of(first, second));
+        verify(listener).onBookingEvents(List.of(first, third));
+        verify(bookingEventRepository).deleteByIds(List.of(2L));
+        verify(bookingEventRepository).deleteByIds(List.of(3L));
+        verify(bookingEventRepository, times(2)).incrementAttempts(Set.of(1L));
+        assertThat(meterRegistry.get("shareit.bookings.events.dispatched").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("shareit.bookings.events.skipped").counter().count()).isZero();
+    }
+
+    @Test
+    void dispatch_ShouldSkipEvent_WhenAttemptsExhausted() {
+        first.setAttempts(2);
+        Mockito.when(bookingEventRepository.findByAttemptsLessThanOrderByIdAsc(3, Limit.of(2)))
+                .thenReturn(List.of(first, second));
+        failOn(listener, first);
+
+        dispatcher.dispatch();
+
+        verify(bookingEventRepository).deleteByIds(List.of(2L));
+        verify(bookingEventRepository).incrementAttempts(Set.of(1L));
+        assertThat(meterRegistry.get("shareit.bookings.events.skipped").counter().count()).isEqualTo(1);
+    }
+
+    // Слушатель падает на любой пачке, где есть сбойное событие
+    private void failOn(BookingEventListener failing, BookingEvent poison) {
+        Mockito.doAnswer(invocation -> {
+            List<BookingEvent> events = invocation.getArgument(0);
+            if (events.contains(poison)) {
+                throw new IllegalStateException("ошибка");
+            }
+            return null;
+        }).when(failing).onBookingEvents(any());
+    }
+
+    private BookingEvent event(Long id, LocalDateTime created) {
+        return BookingEvent.builder()
+                .id(id)
+                .type(BookingEventType.CREATED)
+                .bookingId(id)
+                .itemId(1L)
+                .ownerId(1L)
+                .bookerId(2L)
+                .created(created)
+                .build();
+    }
+
+}
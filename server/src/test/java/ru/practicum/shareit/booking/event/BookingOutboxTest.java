@@ -0,0 +1,74 @@
+package ru.practicum.shareit.booking.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@Import(BookingOutbox.class)
+class BookingOutboxTest {
+
+    @Autowired
+    private BookingOutbox bookingOutbox;
+
+    @Autowired
+    private BookingEventRepository bookingEventRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setup() {
+        owner = entityManager.persist(User.builder().name("owner").email("owner@test.ru").build());
+        booker = entityManager.persist(User.builder().name("booker").email("booker@test.ru").build());
+        item = entityManager.persist(Item.builder()
+                .name("testItem")
+                .description("testDescription")
+                .available(true)
+                .owner(owner)
+                .build());
+    }
+
+    @Test
+    void save_ShouldWriteBookingAndEventTogether() {
+        Booking saved = bookingOutbox.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .status(BookingStatus.WAITING)
+                .build(), BookingEventType.CREATED);
+        saved.setStatus(BookingStatus.REJECTED);
+        bookingOutbox.save(saved, BookingEventType.REJECTED);
+        entityManager.flush();
+
+        List<BookingEvent> events = bookingEventRepository.findByAttemptsLessThanOrderByIdAsc(1, Limit.of(10));
+
+        assertThat(events).extracting(BookingEvent::getType, BookingEvent::getBookingId, BookingEvent::getItemId,
+                        BookingEvent::getOwnerId, BookingEvent::getBookerId)
+                .containsExactly(
+                        tuple(BookingEventType.CREATED, saved.getId(), item.getId(), owner.getId(), booker.getId()),
+                        tuple(BookingEventType.REJECTED, saved.getId(), item.getId(), owner.getId(), booker.getId()));
+        assertThat(bookingEventRepository.deleteByIds(events.stream().map(BookingEvent::getId).toList())).isEqualTo(2);
+        assertThat(bookingEventRepository.count()).isZero();
+    }
+
+}
@@ -0,0 +1,200 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    private Item item;
+    private LocalDateTime start = LocalDateTime.of(2030, 1, 10, 12, 0);
+    private LocalDateTime end = LocalDateTime.of(2030, 1, 15, 12, 0);
+    private Booking booking;
+
+    @BeforeEach
+    void setup() {
+
+        item = Item.builder()
+                .id(1L)
+                .name("testItem")
+                .description("testDescription")
+                .available(true)
+                .build();
+
+        booking = Booking.builder()
+                .id(1L)
+                .item(item)
+                .start(start)
+                .end(end)
+                .status(BookingStatus.WAITING)
+                .build();
+
+    }
+
+    @Test
+    void hasOverlap_ShouldDetectOverlappingPeriodsLoadedFromRepository() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(booking));
+
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start.minusDays(1), start.plusHours(1))).isTrue();
+        assertThat(bookingIntervalIndex.hasOverlap(1L, end.minusHours(1), end.plusDays(1))).isTrue();
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start.plusDays(1), end.minusDays(1))).isTrue();
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start.minusDays(2), start)).isFalse();
+        assertThat(bookingIntervalIndex.hasOverlap(1L, end, end.plusDays(2))).isFalse();
+        verify(bookingRepository, times(1)).findByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    void reserve_ShouldSaveBookingAndRejectOverlappingOne() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of());
+
+        Booking saved = bookingIntervalIndex.reserve(booking, () -> booking);
+        Booking overlapping = Booking.builder()
+                .item(item)
+                .start(start.plusDays(1))
+                .end(end.plusDays(1))
+                .status(BookingStatus.WAITING)
+                .build();
+
+        assertThat(saved).isEqualTo(booking);
+        assertThatThrownBy(() -> bookingIntervalIndex.reserve(overlapping, () -> overlapping))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void reserveAll_ShouldSaveNonOverlappingBookingsAndRejectOverlapsWithinBatch() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(booking));
+        Booking free = Booking.builder()
+                .item(item)
+                .start(end)
+                .end(end.plusDays(2))
+                .status(BookingStatus.WAITING)
+                .build();
+        Booking overlapsBatch = Booking.builder()
+                .item(item)
+                .start(end.plusDays(1))
+                .end(end.plusDays(3))
+                .status(BookingStatus.WAITING)
+                .build();
+        Booking overlapsExisting = Booking.builder()
+                .item(item)
+                .start(start.minusDays(1))
+                .end(start.plusDays(1))
+                .status(BookingStatus.WAITING)
+                .build();
+        List<Booking> conflicts = new ArrayList<>();
+
+        List<Booking> saved = bookingIntervalIndex.reserveAll(List.of(free, overlapsBatch, overlapsExisting),
+                conflicts::add, bookings -> {
+                    bookings.forEach(accepted -> accepted.setId(2L));
+                    return bookings;
+                });
+
+        assertThat(saved).containsExactly(free);
+        assertThat(conflicts).containsExactly(overlapsBatch, overlapsExisting);
+        assertThat(bookingIntervalIndex.hasOverlap(1L, end.plusDays(1), end.plusDays(3))).isTrue();
+        verify(bookingRepository, times(1)).findByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    void update_ShouldReleasePeriod_WhenBookingRejected() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(booking));
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start, end)).isTrue();
+
+        booking.setStatus(BookingStatus.REJECTED);
+        bookingIntervalIndex.update(booking);
+
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start, end)).isFalse();
+    }
+
+    @Test
+    void hasOverlap_ShouldCheckEarlierLongInterval_WhenStoredIntervalsOverlapEachOther() {
+        Booking longBooking = Booking.builder()
+                .id(2L)
+                .item(item)
+                .start(start.minusDays(10))
+                .end(end.plusDays(10))
+                .status(BookingStatus.WAITING)
+                .build();
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(longBooking, booking));
+
+        assertThat(bookingIntervalIndex.hasOverlap(1L, end.plusDays(1), end.plusDays(2))).isTrue();
+        assertThat(bookingIntervalIndex.hasOverlap(1L, end.plusDays(10), end.plusDays(12))).isFalse();
+    }
+
+    @Test
+    void prune_ShouldDropIntervalsEndedBeforeCutoff() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(booking));
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start, end)).isTrue();
+
+        bookingIntervalIndex.prune(end.minusHours(1));
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start, end)).isTrue();
+
+        bookingIntervalIndex.prune(end);
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start, end)).isFalse();
+        verify(bookingRepository, times(1)).findByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    void evict_ShouldReloadIntervalsOnNextAccess() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(booking), List.of());
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start, end)).isTrue();
+
+        bookingIntervalIndex.evict(1L);
+
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start, end)).isFalse();
+        verify(bookingRepository, times(2)).findByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    void update_ShouldApplyReject_WhenItLandsDuringLoad() throws Exception {
+        AtomicReference<CompletableFuture<Void>> rejection = new AtomicReference<>();
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenAnswer(invocation -> {
+            Booking rejected = Booking.builder()
+                    .id(1L)
+                    .item(item)
+                    .start(start)
+                    .end(end)
+                    .status(BookingStatus.REJECTED)
+                    .build();
+            rejection.set(CompletableFuture.runAsync(() -> bookingIntervalIndex.update(rejected)));
+            return List.of(booking);
+        });
+
+        bookingIntervalIndex.hasOverlap(1L, start, end);
+        rejection.get().get(5, TimeUnit.SECONDS);
+
+        assertThat(bookingIntervalIndex.hasOverlap(1L, start, end)).isFalse();
+        verify(bookingRepository, times(1)).findByItemIdAndStatusIn(eq(1L), any());
+    }
+
+}
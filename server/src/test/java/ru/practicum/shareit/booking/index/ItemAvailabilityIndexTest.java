@@ -0,0 +1,138 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ItemAvailabilityIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private ItemAvailabilityIndex itemAvailabilityIndex;
+
+    private Item item;
+    private Booking booking;
+
+    @BeforeEach
+    void setup() {
+
+        item = Item.builder()
+                .id(1L)
+                .name("testItem")
+                .description("testDescription")
+                .available(true)
+                .build();
+
+        // с 30 января 22:30 до 2 февраля 00:00 — конец на границе суток 2 февраля не занимает
+        booking = Booking.builder()
+                .id(1L)
+                .item(item)
+                .start(LocalDateTime.of(2030, 1, 30, 22, 30))
+                .end(LocalDateTime.of(2030, 2, 2, 0, 0))
+                .status(BookingStatus.WAITING)
+                .build();
+
+    }
+
+    @Test
+    void busyDays_ShouldMarkDaysAcrossMonthBoundary() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(booking));
+
+        BitSet busy = itemAvailabilityIndex.busyDays(1L, LocalDate.of(2030, 1, 28), LocalDate.of(2030, 2, 3));
+
+        // 28, 29 свободны; 30, 31, 1 заняты; 2, 3 свободны
+        assertThat(busy.stream().toArray()).containsExactly(2, 3, 4);
+        verify(bookingRepository, times(1)).findByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    void busyHours_ShouldMarkPartiallyCoveredHour() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(booking));
+
+        BitSet busy = itemAvailabilityIndex.busyHours(1L, LocalDateTime.of(2030, 1, 30, 20, 0),
+                LocalDateTime.of(2030, 1, 31, 0, 0));
+
+        assertThat(busy.stream().toArray()).containsExactly(2, 3);
+    }
+
+    @Test
+    void busyHours_ShouldSpanLongHourWindow() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of(booking));
+
+        BitSet busy = itemAvailabilityIndex.busyHours(1L, LocalDateTime.of(2030, 1, 30, 0, 0),
+                LocalDateTime.of(2030, 2, 3, 0, 0));
+
+        assertThat(busy.nextSetBit(0)).isEqualTo(22);
+        assertThat(busy.cardinality()).isEqualTo(2 + 24 + 24);
+        assertThat(busy.length()).isEqualTo(72);
+    }
+
+    @Test
+    void add_ShouldMarkNewBookingInLoadedCalendar() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any())).thenReturn(List.of());
+        LocalDate from = LocalDate.of(2030, 3, 1);
+        assertThat(itemAvailabilityIndex.busyDays(1L, from, from.plusDays(9)).isEmpty()).isTrue();
+
+        itemAvailabilityIndex.add(Booking.builder()
+                .item(item)
+                .start(LocalDateTime.of(2030, 3, 5, 10, 0))
+                .end(LocalDateTime.of(2030, 3, 6, 10, 0))
+                .status(BookingStatus.WAITING)
+                .build());
+
+        assertThat(itemAvailabilityIndex.busyDays(1L, from, from.plusDays(9)).stream().toArray()).containsExactly(4, 5);
+        verify(bookingRepository, times(1)).findByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    void update_ShouldRebuildCalendarAfterRejection() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any()))
+                .thenReturn(List.of(booking))
+                .thenReturn(List.of());
+        LocalDate from = LocalDate.of(2030, 1, 30);
+        assertThat(itemAvailabilityIndex.busyDays(1L, from, from).get(0)).isTrue();
+
+        booking.setStatus(BookingStatus.REJECTED);
+        itemAvailabilityIndex.update(booking);
+
+        assertThat(itemAvailabilityIndex.busyDays(1L, from, from).isEmpty()).isTrue();
+        verify(bookingRepository, times(2)).findByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    void evict_ShouldRebuildCalendarOnNextAccess() {
+        Mockito.when(bookingRepository.findByItemIdAndStatusIn(eq(1L), any()))
+                .thenReturn(List.of(booking))
+                .thenReturn(List.of());
+        LocalDate from = LocalDate.of(2030, 1, 30);
+        assertThat(itemAvailabilityIndex.busyDays(1L, from, from).get(0)).isTrue();
+
+        itemAvailabilityIndex.evict(1L);
+
+        assertThat(itemAvailabilityIndex.busyDays(1L, from, from).isEmpty()).isTrue();
+        verify(bookingRepository, times(2)).findByItemIdAndStatusIn(eq(1L), any());
+    }
+
+}
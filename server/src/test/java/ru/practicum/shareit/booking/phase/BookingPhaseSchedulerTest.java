@@ -0,0 +1,116 @@
+package ru.practicum.shareit.booking.phase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingPhaseSchedulerTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private MutableClock clock;
+    private BookingPhaseScheduler scheduler;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock(Instant.parse("2030-01-01T10:00:00Z"));
+        scheduler = new BookingPhaseScheduler(bookingRepository, clock);
+        now = LocalDateTime.now(clock);
+    }
+
+    @Test
+    void tick_ShouldStartBookingAndThenFinishIt() {
+        Booking booking = Booking.builder()
+                .id(1L)
+                .start(now.plusSeconds(5))
+                .end(now.plusMinutes(10))
+                .phase(BookingPhase.FUTURE)
+                .phaseUntil(now.plusSeconds(5))
+                .build();
+        when(bookingRepository.markStarted(List.of(1L))).thenReturn(1);
+        when(bookingRepository.markFinished(List.of(1L))).thenReturn(1);
+
+        scheduler.schedule(booking);
+        clock.advance(Duration.ofSeconds(3));
+        scheduler.tick();
+        verify(bookingRepository, never()).markStarted(anyList());
+
+        clock.advance(Duration.ofSeconds(4));
+        scheduler.tick();
+        verify(bookingRepository).markStarted(List.of(1L));
+        verify(bookingRepository, never()).markFinished(anyList());
+
+        clock.advance(Duration.ofMinutes(10));
+        scheduler.tick();
+        verify(bookingRepository).markFinished(List.of(1L));
+    }
+
+    @Test
+    void loadUpcoming_ShouldScheduleOverdueTransitionsOnce() {
+        BookingPhaseTransition overdue = new BookingPhaseTransition(2L, BookingPhase.CURRENT,
+                now.minusMinutes(1), now.minusMinutes(1));
+        when(bookingRepository.findPhaseTransitionsBefore(any())).thenReturn(List.of(overdue));
+        when(bookingRepository.markFinished(List.of(2L))).thenReturn(1);
+
+        scheduler.loadUpcoming();
+        scheduler.loadUpcoming();
+        clock.advance(Duration.ofSeconds(2));
+        scheduler.tick();
+
+        verify(bookingRepository).markFinished(List.of(2L));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+    }
+
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking.phase;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    private final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 60, 3, START);
+
+    @Test
+    void advance_ShouldReturnEntriesOnlyAfterTheirDeadline() {
+        wheel.add(START + 1500, "soon");
+        wheel.add(START + 5000, "later");
+
+        assertThat(wheel.advance(START + 1400)).isEmpty();
+        assertThat(wheel.advance(START + 2000)).containsExactly("soon");
+        assertThat(wheel.advance(START + 4999)).isEmpty();
+        assertThat(wheel.advance(START + 6000)).containsExactly("later");
+    }
+
+    @Test
+    void advance_ShouldCascadeEntriesFromUpperLevels() {
+        wheel.add(START + 90 * 60_000L + 500, "hour");
+        wheel.add(START + 61_000, "minute");
+
+        assertThat(wheel.advance(START + 60_000)).isEmpty();
+        assertThat(wheel.advance(START + 62_000)).containsExactly("minute");
+        assertThat(wheel.advance(START + 90 * 60_000L)).isEmpty();
+        assertThat(wheel.advance(START + 90 * 60_000L + 2000)).containsExactly("hour");
+    }
+
+    @Test
+    void advance_ShouldReturnEverythingOverdueAfterLongPause() {
+        wheel.add(START + 3000, "a");
+        wheel.add(START + 30 * 60_000L, "b");
+        wheel.add(START + 5 * 3_600_000L, "c");
+
+        assertThat(wheel.advance(START + 10 * 3_600_000L)).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(wheel.advance(START + 11 * 3_600_000L)).isEmpty();
+    }
+
+    @Test
+    void add_ShouldReturnPastDeadlinesOnNextAdvanceAndRejectBeyondHorizon() {
+        wheel.advance(START + 10_000);
+
+        assertThat(wheel.add(START, "overdue")).isTrue();
+        assertThat(wheel.add(wheel.horizonMillis(), "too far")).isFalse();
+        assertThat(wheel.advance(START + 10_000)).containsExactly("overdue");
+    }
+
+}
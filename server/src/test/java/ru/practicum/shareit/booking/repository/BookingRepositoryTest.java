@@ -0,0 +1,334 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import ru.practicum.shareit.booking.dto.BookingDtoProjection;
+import ru.practicum.shareit.booking.dto.BookingStateCounts;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.StateParam;
+import ru.practicum.shareit.booking.phase.BookingPhaseTransition;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+class BookingRepositoryTest {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private LocalDateTime now = LocalDateTime.now();
+    private User owner;
+    private User booker;
+    private Item item;
+    private Booking past;
+    private Booking current;
+    private Booking future;
+    private Booking rejected;
+
+    @BeforeEach
+    void setup() {
+        owner = entityManager.persist(User.builder().name("owner").email("owner@test.ru").build());
+        booker = entityManager.persist(User.builder().name("booker").email("booker@test.ru").build());
+        item = entityManager.persist(Item.builder()
+                .name("testItem")
+                .description("testDescription")
+                .available(true)
+                .owner(owner)
+                .build());
+        past = persistBooking(item, now.minusDays(3), now.minusDays(2), BookingStatus.APPROVED);
+        current = persistBooking(item, now.minusDays(1), now.plusDays(1), BookingStatus.APPROVED);
+        future = persistBooking(item, now.plusDays(2), now.plusDays(3), BookingStatus.WAITING);
+        rejected = persistBooking(item, now.plusDays(4), now.plusDays(5), BookingStatus.REJECTED);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findProjectedBy_ShouldFilterBookerBookingsByStateOrderedByStartDesc() {
+        assertThat(ids(BookingSpecifications.byBooker(booker.getId()), StateParam.ALL))
+                .containsExactly(rejected.getId(), future.getId(), current.getId(), past.getId());
+        assertThat(ids(BookingSpecifications.byBooker(booker.getId()), StateParam.CURRENT))
+                .containsExactly(current.getId());
+        assertThat(ids(BookingSpecifications.byBooker(booker.getId()), StateParam.PAST))
+                .containsExactly(past.getId());
+        assertThat(ids(BookingSpecifications.byBooker(booker.getId()), StateParam.FUTURE))
+                .containsExactly(rejected.getId(), future.getId());
+        assertThat(ids(BookingSpecifications.byBooker(booker.getId()), StateParam.WAITING))
+                .containsExactly(future.getId());
+        assertThat(ids(BookingSpecifications.byBooker(booker.getId()), StateParam.REJECTED))
+                .containsExactly(rejected.getId());
+        assertThat(ids(BookingSpecifications.byBooker(owner.getId()), StateParam.ALL)).isEmpty();
+    }
+
+    @Test
+    void findProjectedBy_ShouldFilterOwnerBookingsAndScrollWithKeyset() {
+        Window<BookingDtoProjection> first = find(BookingSpecifications.byItemOwner(owner.getId()), StateParam.ALL, 3);
+        BookingDtoProjection last = first.getContent().getLast();
+        Window<BookingDtoProjection> second = find(BookingSpecifications.<Booking>byItemOwner(owner.getId())
+                .and(BookingSpecifications.after(new BookingCursor(last.start(), last.id()))), StateParam.ALL, 3);
+
+        assertThat(first.map(BookingDtoProjection::id).getContent())
+                .containsExactly(rejected.getId(), future.getId(), current.getId());
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.map(BookingDtoProjection::id).getContent()).containsExactly(past.getId());
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void findProjectedBy_ShouldSelectBookerAndItemInSingleStatementWithoutLoadingEntities() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        Window<BookingDtoProjection> bookings = find(BookingSpecifications.byItemOwner(owner.getId()), StateParam.ALL, 10);
+
+        assertThat(bookings.getContent().getFirst())
+                .extracting(BookingDtoProjection::id, BookingDtoProjection::status, BookingDtoProjection::bookerId,
+                        BookingDtoProjection::bookerName, BookingDtoProjection::itemId, BookingDtoProjection::itemName)
+                .containsExactly(rejected.getId(), BookingStatus.REJECTED, booker.getId(), booker.getName(),
+                        item.getId(), item.getName());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void updateWaitingStatus_ShouldChangeOnlyWaitingBookingsOfItemOwner() {
+        List<Long> bookingIds = List.of(future.getId(), current.getId(), rejected.getId());
+
+        List<Booking> waiting = bookingRepository.findWaitingByIdsAndOwnerForUpdate(bookingIds, owner.getId());
+        int updatedByBooker = bookingRepository.updateWaitingStatus(bookingIds, booker.getId(), BookingStatus.APPROVED);
+        int updatedByOwner = bookingRepository.updateWaitingStatus(bookingIds, owner.getId(), BookingStatus.APPROVED);
+
+        assertThat(waiting).extracting(Booking::getId).containsExactly(future.getId());
+        assertThat(updatedByBooker).isZero();
+        assertThat(updatedByOwner).isEqualTo(1);
+        assertThat(entityManager.find(Booking.class, future.getId()).getStatus()).isEqualTo(BookingStatus.APPROVED);
+        assertThat(entityManager.find(Booking.class, rejected.getId()).getStatus()).isEqualTo(BookingStatus.REJECTED);
+    }
+
+    @Test
+    void save_ShouldRejectStaleStatusChange() {
+        Booking first = bookingRepository.findById(future.getId()).orElseThrow();
+        entityManager.detach(first);
+        Booking second = bookingRepository.findById(future.getId()).orElseThrow();
+        entityManager.detach(second);
+
+        first.setStatus(BookingStatus.APPROVED);
+        bookingRepository.saveAndFlush(first);
+        second.setStatus(BookingStatus.REJECTED);
+
+        assertThatThrownBy(() -> bookingRepository.saveAndFlush(second))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void explain_ShouldSeekBookerPageByBookerStartIndex() {
+        String plan = explain("SELECT b.booking_id, b.status FROM bookings b " +
+                "WHERE b.user_id = ? AND b.start_date <= ? " +
+                "AND (b.start_date < ? OR (b.start_date = ? AND b.booking_id < ?)) " +
+                "ORDER BY b.start_date DESC, b.booking_id DESC FETCH FIRST 20 ROWS ONLY",
+                booker.getId(), now, now, now, current.getId());
+
+        assertThat(plan).containsIgnoringCase("ix_booking_booker_start");
+    }
+
+    @Test
+    void explain_ShouldScanOwnerPagesByOwnerStartIndexWithoutJoin() {
+        String firstPage = explain("SELECT b.booking_id, b.status FROM bookings b " +
+                "WHERE b.owner_id = ? " +
+                "ORDER BY b.start_date DESC, b.booking_id DESC FETCH FIRST 20 ROWS ONLY", owner.getId());
+        String nextPage = explain("SELECT b.booking_id, b.status FROM bookings b " +
+                "WHERE b.owner_id = ? AND b.start_date <= ? " +
+                "AND (b.start_date < ? OR (b.start_date = ? AND b.booking_id < ?)) " +
+                "ORDER BY b.start_date DESC, b.booking_id DESC FETCH FIRST 20 ROWS ONLY",
+                owner.getId(), now, now, now, current.getId());
+
+        assertThat(firstPage).containsIgnoringCase("ix_booking_owner_start");
+        assertThat(nextPage).containsIgnoringCase("ix_booking_owner_start");
+    }
+
+    @Test
+    void persist_ShouldCopyItemOwnerToBooking() {
+        assertThat(entityManager.find(Booking.class, past.getId()).getOwnerId()).isEqualTo(owner.getId());
+    }
+
+    @Test
+    void explain_ShouldSeekOwnerStatePageByOwnerPhaseIndex() {
+        String ownerPage = explain("SELECT b.booking_id, b.status FROM bookings b " +
+                "WHERE b.owner_id = ? AND b.phase = ? " +
+                "ORDER BY b.start_date DESC, b.booking_id DESC FETCH FIRST 20 ROWS ONLY",
+                owner.getId(), BookingPhase.FUTURE.name());
+
+        assertThat(ownerPage).containsIgnoringCase("ix_booking_owner_phase");
+    }
+
+    @Test
+    void persist_ShouldDerivePhaseFromBookingPeriod() {
+        assertThat(entityManager.find(Booking.class, past.getId()))
+                .extracting(Booking::getPhase, Booking::getPhaseUntil)
+                .containsExactly(BookingPhase.PAST, null);
+        assertThat(entityManager.find(Booking.class, current.getId()).getPhase()).isEqualTo(BookingPhase.CURRENT);
+        assertThat(entityManager.find(Booking.class, future.getId()).getPhase()).isEqualTo(BookingPhase.FUTURE);
+    }
+
+    @Test
+    void markStartedAndFinished_ShouldMoveOnlyBookingsInExpectedPhase() {
+        List<Long> bookingIds = List.of(past.getId(), current.getId(), future.getId());
+
+        int started = bookingRepository.markStarted(bookingIds);
+        entityManager.clear();
+        Booking startedFuture = entityManager.find(Booking.class, future.getId());
+        int finished = bookingRepository.markFinished(bookingIds);
+        entityManager.clear();
+
+        assertThat(started).isEqualTo(1);
+        assertThat(startedFuture.getPhase()).isEqualTo(BookingPhase.CURRENT);
+        assertThat(startedFuture.getPhaseUntil()).isEqualTo(startedFuture.getEnd());
+        assertThat(finished).isEqualTo(2);
+        assertThat(entityManager.find(Booking.class, future.getId()).getPhase()).isEqualTo(BookingPhase.PAST);
+        assertThat(entityManager.find(Booking.class, future.getId()).getPhaseUntil()).isNull();
+    }
+
+    @Test
+    void findPhaseTransitionsBefore_ShouldReturnBookingsChangingPhaseBeforeHorizon() {
+        assertThat(bookingRepository.findPhaseTransitionsBefore(now.plusDays(2).plusHours(1)))
+                .extracting(BookingPhaseTransition::bookingId, BookingPhaseTransition::phase)
+                .containsExactlyInAnyOrder(
+                        tuple(current.getId(), BookingPhase.CURRENT),
+                        tuple(future.getId(), BookingPhase.FUTURE));
+    }
+
+    @Test
+    void copyToArchiveAndDelete_ShouldMoveFinishedBookingsToArchive() {
+        List<Long> archivable = bookingRepository.findArchivableIds(now.minusDays(1), 10);
+
+        int copied = bookingRepository.copyToArchive(archivable);
+        int deleted = bookingRepository.deleteByIds(archivable);
+
+        assertThat(archivable).containsExactly(past.getId());
+        assertThat(copied).isEqualTo(1);
+        assertThat(deleted).isEqualTo(1);
+        assertThat(ids(BookingSpecifications.byBooker(booker.getId()), StateParam.PAST)).isEmpty();
+        assertThat(bookingRepository.findArchivedProjectedBy(BookingSpecifications.byBooker(booker.getId()), 10)
+                .map(BookingDtoProjection::id).getContent()).containsExactly(past.getId());
+        assertThat(bookingRepository.existsArchivedByBookerAndItemEndedBefore(booker.getId(), item.getId(), now))
+                .isTrue();
+    }
+
+    @Test
+    void findStaleWaitingIds_ShouldSelectOldOrStartedWaitingBookingsAndCancelThem() {
+        Booking old = entityManager.persist(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(now.plusDays(10))
+                .end(now.plusDays(11))
+                .status(BookingStatus.WAITING)
+                .created(now.minusDays(5))
+                .build());
+        Booking started = persistBooking(item, now.minusHours(1), now.plusDays(12), BookingStatus.WAITING);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> stale = bookingRepository.findStaleWaitingIds(now.minusDays(3), now, 10);
+        List<Booking> locked = bookingRepository.findWaitingByIdsForUpdate(stale);
+        int canceled = bookingRepository.cancelWaiting(stale);
+
+        assertThat(stale).containsExactly(old.getId(), started.getId());
+        assertThat(locked).hasSize(2);
+        assertThat(canceled).isEqualTo(2);
+        assertThat(bookingRepository.findById(old.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CANCELED);
+        assertThat(bookingRepository.findById(future.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.WAITING);
+        assertThat(bookingRepository.findStaleWaitingIds(now.minusDays(3), now, 10)).isEmpty();
+    }
+
+    @Test
+    void countStatesByOwnerId_ShouldCountEveryStateInOneStatement() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        BookingStateCounts counts = bookingRepository.countStatesByOwnerId(owner.getId());
+
+        assertThat(counts).isEqualTo(new BookingStateCounts(4L, 1L, 1L, 2L, 1L, 1L, 0L));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(bookingRepository.countStatesByOwnerId(booker.getId()))
+                .isEqualTo(new BookingStateCounts(0L, 0L, 0L, 0L, 0L, 0L, 0L));
+    }
+
+    @Test
+    void explain_ShouldCountOwnerStatesFromOwnerStateIndex() {
+        String plan = explain("SELECT COUNT(*), COUNT(*) FILTER (WHERE b.phase = 'CURRENT'), " +
+                "COUNT(*) FILTER (WHERE b.status = 'WAITING') FROM bookings b WHERE b.owner_id = ?", owner.getId());
+
+        assertThat(plan).containsIgnoringCase("ix_booking_owner_state");
+    }
+
+    @Test
+    void streamProjectedByOwnerId_ShouldStreamOwnerBookingsWithoutLoadingEntities() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<Long> streamed;
+        try (Stream<BookingDtoProjection> bookings = bookingRepository.streamProjectedByOwnerId(owner.getId())) {
+            streamed = bookings.map(BookingDtoProjection::id).toList();
+        }
+
+        assertThat(streamed).containsExactly(rejected.getId(), future.getId(), current.getId(), past.getId());
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    private Booking persistBooking(Item item, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return entityManager.persist(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(end)
+                .status(status)
+                .build());
+    }
+
+    private String explain(String sql, Object... args) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args);
+    }
+
+    private List<Long> ids(Specification<Booking> participant, StateParam state) {
+        return find(participant, state, 10).map(BookingDtoProjection::id).getContent();
+    }
+
+    private Window<BookingDtoProjection> find(Specification<Booking> participant, StateParam state, int size) {
+        return bookingRepository.findProjectedBy(participant.and(BookingSpecifications.inState(state)), size);
+    }
+
+}
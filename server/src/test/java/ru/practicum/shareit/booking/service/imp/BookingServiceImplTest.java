@@ -7,15 +7,34 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoProjection;
 import ru.practicum.shareit.booking.dto.BookingMapStruct;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingStateCounts;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.dto.NewBookingAddRequest;
+import ru.practicum.shareit.booking.event.BookingEventType;
+import ru.practicum.shareit.booking.event.BookingOutbox;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.model.StateParam;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.AccessException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoForRequest;
 import ru.practicum.shareit.item.dto.ItemMapStruct;
@@ -29,14 +48,23 @@ import ru.practicum.shareit.user.dto.UserMapStruct;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -46,6 +74,15 @@ class BookingServiceImplTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private BookingOutbox bookingOutbox;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private ItemAvailabilityIndex itemAvailabilityIndex;
+
     @Mock
     private UserService userService;
 
@@ -76,6 +113,7 @@ class BookingServiceImplTest {
     private LocalDateTime localDateTime2 = LocalDateTime.now();
     private NewBookingAddRequest newBookingAddRequest;
     private Booking booking;
+    private BookingDtoProjection bookingDtoProjection;
     private BookingDto bookingDto;
     private StateParam stateParam;
 
@@ -153,6 +191,9 @@ class BookingServiceImplTest {
                 .status(BookingStatus.WAITING)
                 .build();
 
+        bookingDtoProjection = new BookingDtoProjection(1L, localDateTime1, localDateTime2, BookingStatus.WAITING,
+                user.getId(), user.getName(), item.getId(), item.getName());
+
         bookingDto = BookingDto.builder()
                 .id(1L)
                 .item(itemDto)
@@ -173,30 +214,208 @@ class BookingServiceImplTest {
         Mockito.when(userMapStruct.toUserDto(user)).thenReturn(userDto);
         Mockito.when(itemMapStruct.toItemDto(item)).thenReturn(itemDto);
         Mockito.when(bookingMapStruct.newBooking(userDto, itemDto, newBookingAddRequest)).thenReturn(booking);
-        Mockito.when(bookingRepository.save(booking)).thenReturn(booking);
+        Mockito.when(bookingIntervalIndex.reserve(eq(booking), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Booking>>getArgument(1).get());
+        Mockito.when(bookingOutbox.save(eq(booking), any())).thenReturn(booking);
         Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
 
         BookingDto result = bookingServiceImpl.addBooking(1L, newBookingAddRequest);
 
         assertThat(result).isEqualTo(bookingDto);
         verify(bookingMapStruct, times(1)).newBooking(userDto, itemDto, newBookingAddRequest);
-        verify(bookingRepository, times(1)).save(booking);
+        verify(bookingOutbox, times(1)).save(eq(booking), any());
         verify(bookingMapStruct, times(1)).toBookingDto(booking);
+        verify(itemAvailabilityIndex, times(1)).add(booking);
+        verify(itemService, never()).applyNewBookings(any());
     }
 
     @Test
     void approvedBooking_ShouldSetStatusApprovedToBookingAndReturnBookingDto() {
         Mockito.when(bookingRepository.findByIdWithBookerAndItem(1L)).thenReturn(Optional.of(booking));
-        Mockito.when(bookingRepository.save(booking)).thenReturn(booking);
+        Mockito.when(bookingOutbox.save(eq(booking), any())).thenReturn(booking);
         Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
 
         BookingDto result = bookingServiceImpl.approvedBooking(1L, 1L, true);
 
         verify(bookingRepository, times(1)).findByIdWithBookerAndItem(1L);
-        verify(bookingRepository, times(1)).save(booking);
+        verify(bookingOutbox, times(1)).save(eq(booking), any());
+        verify(bookingIntervalIndex, times(1)).update(booking);
         verify(bookingMapStruct, times(1)).toBookingDto(booking);
     }
 
+    @Test
+    void approvedBooking_ShouldWriteRejectedEventInsteadOfRefreshingItemDates() {
+        item.setNextBookingId(booking.getId());
+        Mockito.when(bookingRepository.findByIdWithBookerAndItem(1L)).thenReturn(Optional.of(booking));
+        Mockito.when(bookingOutbox.save(eq(booking), any())).thenReturn(booking);
+
+        bookingServiceImpl.approvedBooking(1L, 1L, false);
+
+        verify(bookingOutbox, times(1)).save(booking, BookingEventType.REJECTED);
+        verify(itemService, times(0)).refreshBookingDates(any());
+    }
+
+    @Test
+    void addBooking_ShouldThrowConflictException_WhenPeriodOverlaps() {
+        Mockito.when(userService.getUserById(1L)).thenReturn(user);
+        Mockito.when(itemService.getItemById(1L)).thenReturn(item);
+        Mockito.when(userMapStruct.toUserDto(user)).thenReturn(userDto);
+        Mockito.when(itemMapStruct.toItemDto(item)).thenReturn(itemDto);
+        Mockito.when(bookingMapStruct.newBooking(userDto, itemDto, newBookingAddRequest)).thenReturn(booking);
+        Mockito.when(bookingIntervalIndex.reserve(eq(booking), any()))
+                .thenThrow(new ConflictException("вещь уже забронирована на указанный период"));
+
+        assertThatThrownBy(() -> bookingServiceImpl.addBooking(1L, newBookingAddRequest))
+                .isInstanceOf(ConflictException.class);
+        verify(bookingOutbox, times(0)).save(any(), any());
+    }
+
+    @Test
+    void addBooking_ShouldThrowConflictException_WhenExclusionConstraintViolated() {
+        Mockito.when(userService.getUserById(1L)).thenReturn(user);
+        Mockito.when(itemService.getItemById(1L)).thenReturn(item);
+        Mockito.when(userMapStruct.toUserDto(user)).thenReturn(userDto);
+        Mockito.when(itemMapStruct.toItemDto(item)).thenReturn(itemDto);
+        Mockito.when(bookingMapStruct.newBooking(userDto, itemDto, newBookingAddRequest)).thenReturn(booking);
+        Mockito.when(bookingIntervalIndex.reserve(eq(booking), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Booking>>getArgument(1).get());
+        Mockito.when(bookingOutbox.save(eq(booking), any()))
+                .thenThrow(new DataIntegrityViolationException("ex_booking_item_period",
+                        new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        assertThatThrownBy(() -> bookingServiceImpl.addBooking(1L, newBookingAddRequest))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void addBooking_ShouldRethrow_WhenOtherIntegrityConstraintViolated() {
+        Mockito.when(userService.getUserById(1L)).thenReturn(user);
+        Mockito.when(itemService.getItemById(1L)).thenReturn(item);
+        Mockito.when(userMapStruct.toUserDto(user)).thenReturn(userDto);
+        Mockito.when(itemMapStruct.toItemDto(item)).thenReturn(itemDto);
+        Mockito.when(bookingMapStruct.newBooking(userDto, itemDto, newBookingAddRequest)).thenReturn(booking);
+        Mockito.when(bookingIntervalIndex.reserve(eq(booking), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Booking>>getArgument(1).get());
+        Mockito.when(bookingOutbox.save(eq(booking), any()))
+                .thenThrow(new DataIntegrityViolationException("fk_booking_item",
+                        new SQLException("violates foreign key constraint", "23503")));
+
+        assertThatThrownBy(() -> bookingServiceImpl.addBooking(1L, newBookingAddRequest))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void addBookings_ShouldSaveValidEntriesAndReportRejectedOnes() {
+        NewBookingAddRequest missingItem = NewBookingAddRequest.builder()
+                .start(localDateTime1)
+                .end(localDateTime2)
+                .itemId(2L)
+                .build();
+        NewBookingAddRequest withoutEnd = NewBookingAddRequest.builder()
+                .start(localDateTime1)
+                .itemId(1L)
+                .build();
+        Mockito.when(userService.getUserById(1L)).thenReturn(user);
+        Mockito.when(itemService.getItemsByIds(Set.of(1L, 2L))).thenReturn(List.of(item));
+        Mockito.when(bookingIntervalIndex.reserveAll(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<UnaryOperator<List<Booking>>>getArgument(2)
+                        .apply(invocation.getArgument(0)));
+        Mockito.when(bookingOutbox.saveAll(any(), eq(BookingEventType.CREATED))).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            bookings.forEach(saved -> saved.setId(10L));
+            return bookings;
+        });
+
+        List<BookingBatchResultDto> results = bookingServiceImpl.addBookings(1L,
+                List.of(newBookingAddRequest, missingItem, withoutEnd));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).getBookingId()).isEqualTo(10L);
+        assertThat(results.get(0).getStatus()).isEqualTo(BookingStatus.WAITING);
+        assertThat(results.get(1).getError()).contains("не найдена");
+        assertThat(results.get(2).getError()).contains("окончания бронирования");
+        verify(itemService, times(1)).getItemsByIds(Set.of(1L, 2L));
+        verify(bookingOutbox, times(1)).saveAll(any(), eq(BookingEventType.CREATED));
+    }
+
+    @Test
+    void addBookings_ShouldReportConflicts_WhenPeriodsOverlap() {
+        Mockito.when(userService.getUserById(1L)).thenReturn(user);
+        Mockito.when(itemService.getItemsByIds(Set.of(1L))).thenReturn(List.of(item));
+        Mockito.when(bookingIntervalIndex.reserveAll(any(), any(), any())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            bookings.forEach(invocation.<Consumer<Booking>>getArgument(1));
+            return List.of();
+        });
+
+        List<BookingBatchResultDto> results = bookingServiceImpl.addBookings(1L,
+                List.of(newBookingAddRequest, newBookingAddRequest));
+
+        assertThat(results).extracting(BookingBatchResultDto::getError)
+                .containsOnly("вещь уже забронирована на указанный период");
+        verify(bookingOutbox, times(0)).saveAll(any(), any());
+    }
+
+    @Test
+    void addBookings_ShouldReportConflicts_WhenExclusionConstraintViolated() {
+        Mockito.when(userService.getUserById(1L)).thenReturn(user);
+        Mockito.when(itemService.getItemsByIds(Set.of(1L))).thenReturn(List.of(item));
+        Mockito.when(bookingIntervalIndex.reserveAll(any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("ex_booking_item_period",
+                        new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        List<BookingBatchResultDto> results = bookingServiceImpl.addBookings(1L, List.of(newBookingAddRequest));
+
+        assertThat(results.getFirst().getBookingId()).isNull();
+        assertThat(results.getFirst().getError()).isEqualTo("вещь уже забронирована на указанный период");
+    }
+
+    @Test
+    void approvedBookings_ShouldUpdateIndexesOnlyAfterCommit() {
+        Mockito.when(bookingRepository.findWaitingByIdsAndOwnerForUpdate(List.of(1L), 1L)).thenReturn(List.of(booking));
+        Mockito.when(bookingRepository.updateWaitingStatus(List.of(1L), 1L, BookingStatus.APPROVED)).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookingServiceImpl.approvedBookings(1L, List.of(1L), true);
+
+            verify(bookingIntervalIndex, times(0)).update(any());
+            verify(itemAvailabilityIndex, times(0)).update(any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(bookingIntervalIndex, times(1)).update(booking);
+        verify(itemAvailabilityIndex, times(1)).update(booking);
+    }
+
+    @Test
+    void approvedBookings_ShouldUpdateWaitingBookingsAndReportSkipped() {
+        Mockito.when(bookingRepository.findWaitingByIdsAndOwnerForUpdate(List.of(1L, 2L), 1L))
+                .thenReturn(List.of(booking));
+        Mockito.when(bookingRepository.updateWaitingStatus(List.of(1L), 1L, BookingStatus.REJECTED)).thenReturn(1);
+
+        BookingDecisionResultDto result = bookingServiceImpl.approvedBookings(1L, List.of(1L, 2L), false);
+
+        assertThat(result.getStatus()).isEqualTo(BookingStatus.REJECTED);
+        assertThat(result.getUpdated()).containsExactly(1L);
+        assertThat(result.getSkipped()).containsExactly(2L);
+        assertThat(booking.getStatus()).isEqualTo(BookingStatus.REJECTED);
+        verify(bookingIntervalIndex, times(1)).update(booking);
+        verify(bookingOutbox, times(1)).append(List.of(booking), BookingEventType.REJECTED);
+    }
+
+    @Test
+    void approvedBookings_ShouldSkipUpdate_WhenNothingToDecide() {
+        Mockito.when(bookingRepository.findWaitingByIdsAndOwnerForUpdate(List.of(2L), 1L)).thenReturn(List.of());
+
+        BookingDecisionResultDto result = bookingServiceImpl.approvedBookings(1L, List.of(2L), true);
+
+        assertThat(result.getUpdated()).isEmpty();
+        assertThat(result.getSkipped()).containsExactly(2L);
+        verify(bookingRepository, times(0)).updateWaitingStatus(any(), any(), any());
+    }
+
     @Test
     void getBookingByBookerIdOrOwnerId_ShouldReturnBookingDtoByBookerIdOrOwnerId() {
         Mockito.when(bookingRepository.findByIdWithBookerAndItem(1L)).thenReturn(Optional.of(booking));
@@ -211,151 +430,288 @@ class BookingServiceImplTest {
 
     @Test
     void getUserBookings_ShouldReturnListBookingDtoWithStateParamCURRENT() {
-        Mockito.when(bookingRepository.findByBookerIdAndStartBeforeAndEndAfter(
-                eq(1L),
-                any(LocalDateTime.class),
-                any(LocalDateTime.class))
-        ).thenReturn(List.of(booking));
-        Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
 
-        List<BookingDto> result = bookingServiceImpl.getUserBookings(1L, StateParam.CURRENT);
+        BookingPageDto result = bookingServiceImpl.getUserBookings(1L, StateParam.CURRENT, null, 20);
 
-        assertThat(result.getFirst()).isEqualTo(bookingDto);
-        verify(bookingRepository, times(1)).findByBookerIdAndStartBeforeAndEndAfter(
-                eq(1L),
-                any(LocalDateTime.class),
-                any(LocalDateTime.class));
-        verify(bookingMapStruct, times(1)).toBookingDto(booking);
+        assertThat(result.getBookings().getFirst()).isEqualTo(bookingDto);
+        assertThat(result.getNextCursor()).isNull();
+        verify(bookingRepository, times(1)).findProjectedBy(any(Specification.class), anyInt());
+        verify(bookingMapStruct, times(1)).toBookingDto(bookingDtoProjection);
     }
 
     @Test
     void getUserBookings_ShouldReturnListBookingDtoWithStateParamPast() {
-        Mockito.when(bookingRepository.findByBookerIdAndEndBefore(
-                eq(1L),
-                any(LocalDateTime.class))
-        ).thenReturn(List.of(booking));
-        Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
-
-        List<BookingDto> result = bookingServiceImpl.getUserBookings(1L, StateParam.PAST);
-
-        assertThat(result.getFirst()).isEqualTo(bookingDto);
-        verify(bookingRepository, times(1)).findByBookerIdAndEndBefore(
-                eq(1L),
-                any(LocalDateTime.class));
-        verify(bookingMapStruct, times(1)).toBookingDto(booking);
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingRepository.findArchivedProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
+
+        BookingPageDto result = bookingServiceImpl.getUserBookings(1L, StateParam.PAST, null, 20);
+
+        assertThat(result.getBookings().getFirst()).isEqualTo(bookingDto);
+        assertThat(result.getNextCursor()).isNull();
+        verify(bookingRepository, times(1)).findProjectedBy(any(Specification.class), anyInt());
+        verify(bookingMapStruct, times(1)).toBookingDto(bookingDtoProjection);
     }
 
     @Test
     void getUserBookings_ShouldReturnListBookingDtoWithStateParamFUTURE() {
-        Mockito.when(bookingRepository.findByBookerIdAndStartAfter(
-                eq(1L),
-                any(LocalDateTime.class))
-        ).thenReturn(List.of(booking));
-        Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
 
-        List<BookingDto> result = bookingServiceImpl.getUserBookings(1L, StateParam.FUTURE);
+        BookingPageDto result = bookingServiceImpl.getUserBookings(1L, StateParam.FUTURE, null, 20);
 
-        assertThat(result.getFirst()).isEqualTo(bookingDto);
-        verify(bookingRepository, times(1)).findByBookerIdAndStartAfter(
-                eq(1L),
-                any(LocalDateTime.class));
-        verify(bookingMapStruct, times(1)).toBookingDto(booking);
+        assertThat(result.getBookings().getFirst()).isEqualTo(bookingDto);
+        assertThat(result.getNextCursor()).isNull();
+        verify(bookingRepository, times(1)).findProjectedBy(any(Specification.class), anyInt());
+        verify(bookingMapStruct, times(1)).toBookingDto(bookingDtoProjection);
     }
 
     @Test
     void getUserBookings_ShouldReturnListBookingDtoWithStateParamWAITING() {
-        Mockito.when(bookingRepository.findByBookerIdAndStatus(1L, BookingStatus.WAITING)
-        ).thenReturn(List.of(booking));
-        Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
 
-        List<BookingDto> result = bookingServiceImpl.getUserBookings(1L, StateParam.WAITING);
+        BookingPageDto result = bookingServiceImpl.getUserBookings(1L, StateParam.WAITING, null, 20);
 
-        assertThat(result.getFirst()).isEqualTo(bookingDto);
-        verify(bookingRepository, times(1)).findByBookerIdAndStatus(1L, BookingStatus.WAITING);
-        verify(bookingMapStruct, times(1)).toBookingDto(booking);
+        assertThat(result.getBookings().getFirst()).isEqualTo(bookingDto);
+        assertThat(result.getNextCursor()).isNull();
+        verify(bookingRepository, times(1)).findProjectedBy(any(Specification.class), anyInt());
+        verify(bookingMapStruct, times(1)).toBookingDto(bookingDtoProjection);
     }
 
     @Test
     void getUserBookings_ShouldReturnListBookingDtoWithStateParamREJECTED() {
-        Mockito.when(bookingRepository.findByBookerIdAndStatus(1L, BookingStatus.REJECTED)
-        ).thenReturn(List.of(booking));
-        Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
 
-        List<BookingDto> result = bookingServiceImpl.getUserBookings(1L, StateParam.REJECTED);
+        BookingPageDto result = bookingServiceImpl.getUserBookings(1L, StateParam.REJECTED, null, 20);
 
-        assertThat(result.getFirst()).isEqualTo(bookingDto);
-        verify(bookingRepository, times(1)).findByBookerIdAndStatus(1L, BookingStatus.REJECTED);
-        verify(bookingMapStruct, times(1)).toBookingDto(booking);
+        assertThat(result.getBookings().getFirst()).isEqualTo(bookingDto);
+        assertThat(result.getNextCursor()).isNull();
+        verify(bookingRepository, times(1)).findProjectedBy(any(Specification.class), anyInt());
+        verify(bookingMapStruct, times(1)).toBookingDto(bookingDtoProjection);
+    }
+
+    @Test
+    void getUserBookings_ShouldReturnNextCursor_WhenMoreBookingsAvailable() {
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset(), true));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
+
+        BookingPageDto result = bookingServiceImpl.getUserBookings(1L, StateParam.ALL, null, 1);
+
+        assertThat(result.getBookings()).containsExactly(bookingDto);
+        assertThat(BookingCursor.decode(result.getNextCursor())).isEqualTo(new BookingCursor(localDateTime1, 1L));
+    }
+
+    @Test
+    void getUserBookings_ShouldContinueWithArchive_WhenHotBookingsExhausted() {
+        BookingDtoProjection archived = new BookingDtoProjection(2L, localDateTime1.minusYears(1),
+                localDateTime2.minusYears(1), BookingStatus.APPROVED, 1L, "name", 1L, "item");
+        BookingDto archivedDto = BookingDto.builder().id(2L).build();
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), eq(2)))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingRepository.findArchivedProjectedBy(any(Specification.class), eq(1)))
+                .thenReturn(Window.from(List.of(archived), index -> ScrollPosition.keyset(), true));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
+        Mockito.when(bookingMapStruct.toBookingDto(archived)).thenReturn(archivedDto);
+
+        BookingPageDto result = bookingServiceImpl.getUserBookings(1L, StateParam.PAST, null, 2);
+
+        assertThat(result.getBookings()).containsExactly(bookingDto, archivedDto);
+        assertThat(BookingCursor.decode(result.getNextCursor()))
+                .isEqualTo(new BookingCursor(archived.start(), 2L, true));
+    }
+
+    @Test
+    void getUserBookings_ShouldReadOnlyArchive_WhenCursorPointsIntoArchive() {
+        Mockito.when(bookingRepository.findArchivedProjectedBy(any(Specification.class), eq(20)))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
+
+        BookingPageDto result = bookingServiceImpl.getUserBookings(1L, StateParam.PAST,
+                new BookingCursor(localDateTime2, 5L, true).encode(), 20);
+
+        assertThat(result.getBookings()).containsExactly(bookingDto);
+        assertThat(result.getNextCursor()).isNull();
+        verify(bookingRepository, never()).findProjectedBy(any(Specification.class), anyInt());
+    }
+
+    @Test
+    void getOwnerBookingSummary_ShouldAddArchivedBookingsToAllAndPast() {
+        Mockito.when(userService.getUserById(1L)).thenReturn(user);
+        Mockito.when(bookingRepository.countStatesByOwnerId(1L))
+                .thenReturn(new BookingStateCounts(5L, 1L, 2L, 2L, 1L, 1L, 3L));
+
+        BookingSummaryDto result = bookingServiceImpl.getOwnerBookingSummary(1L);
+
+        assertThat(result).isEqualTo(new BookingSummaryDto(8, 1, 5, 2, 1, 1));
+    }
+
+    @Test
+    void exportOwnerBookings_ShouldPassHotThenArchivedBookingsToConsumer() {
+        BookingDtoProjection archived = new BookingDtoProjection(2L, localDateTime1.minusYears(1),
+                localDateTime2.minusYears(1), BookingStatus.APPROVED, 1L, "name", 1L, "item");
+        BookingDto archivedDto = BookingDto.builder().id(2L).build();
+        Mockito.when(userService.getUserById(1L)).thenReturn(user);
+        Mockito.when(bookingRepository.streamProjectedByOwnerId(1L)).thenReturn(Stream.of(bookingDtoProjection));
+        Mockito.when(bookingRepository.streamArchivedProjectedByOwnerId(1L)).thenReturn(Stream.of(archived));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
+        Mockito.when(bookingMapStruct.toBookingDto(archived)).thenReturn(archivedDto);
+        List<BookingDto> exported = new ArrayList<>();
+
+        bookingServiceImpl.exportOwnerBookings(1L, exported::add);
+
+        assertThat(exported).containsExactly(bookingDto, archivedDto);
+    }
+
+    @Test
+    void archiveFinishedBookings_ShouldCopyAndDeleteSelectedChunk() {
+        LocalDateTime endedBefore = LocalDateTime.now().minusDays(180);
+        Mockito.when(bookingRepository.findArchivableIds(endedBefore, 100)).thenReturn(List.of(1L, 2L));
+        Mockito.when(bookingRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+
+        int archived = bookingServiceImpl.archiveFinishedBookings(endedBefore, 100);
+
+        assertThat(archived).isEqualTo(2);
+        verify(bookingRepository).copyToArchive(List.of(1L, 2L));
+    }
+
+    @Test
+    void expireStaleWaitingBookings_ShouldCancelLockedBookingsAndRefreshIndexes() {
+        LocalDateTime now = LocalDateTime.now();
+        Mockito.when(bookingRepository.findStaleWaitingIds(now.minusDays(3), now, 100)).thenReturn(List.of(1L));
+        Mockito.when(bookingRepository.findWaitingByIdsForUpdate(List.of(1L))).thenReturn(List.of(booking));
+        Mockito.when(bookingRepository.cancelWaiting(List.of(1L))).thenReturn(1);
+
+        int expired = bookingServiceImpl.expireStaleWaitingBookings(now.minusDays(3), now, 100);
+
+        assertThat(expired).isEqualTo(1);
+        assertThat(booking.getStatus()).isEqualTo(BookingStatus.CANCELED);
+        verify(bookingIntervalIndex).update(booking);
+        verify(itemAvailabilityIndex).update(booking);
+        verify(bookingOutbox).append(List.of(booking), BookingEventType.EXPIRED);
+    }
+
+    @Test
+    void expireStaleWaitingBookings_ShouldKeepIndexes_WhenTransactionRolledBack() {
+        LocalDateTime now = LocalDateTime.now();
+        Mockito.when(bookingRepository.findStaleWaitingIds(now.minusDays(3), now, 100)).thenReturn(List.of(1L));
+        Mockito.when(bookingRepository.findWaitingByIdsForUpdate(List.of(1L))).thenReturn(List.of(booking));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookingServiceImpl.expireStaleWaitingBookings(now.minusDays(3), now, 100);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(bookingIntervalIndex, never()).update(any());
+        verify(itemAvailabilityIndex, never()).update(any());
+    }
+
+    @Test
+    void expireStaleWaitingBookings_ShouldSkipUpdate_WhenNothingStale() {
+        LocalDateTime now = LocalDateTime.now();
+        Mockito.when(bookingRepository.findStaleWaitingIds(now.minusDays(3), now, 100)).thenReturn(List.of());
+
+        assertThat(bookingServiceImpl.expireStaleWaitingBookings(now.minusDays(3), now, 100)).isZero();
+        verify(bookingRepository, never()).cancelWaiting(any());
+    }
+
+    @Test
+    void getUserBookings_ShouldThrowValidationException_WhenSizeNotPositive() {
+        assertThatThrownBy(() -> bookingServiceImpl.getUserBookings(1L, StateParam.ALL, null, 0))
+                .isInstanceOf(ValidationException.class);
+        verify(bookingRepository, never()).findProjectedBy(any(), anyInt());
+    }
+
+    @Test
+    void getUserBookings_ShouldThrowValidationException_WhenCursorMalformed() {
+        assertThatThrownBy(() -> bookingServiceImpl.getUserBookings(1L, StateParam.ALL, "не-курсор", 20))
+                .isInstanceOf(ValidationException.class);
     }
 
     @Test
     void getBookingsForItemsByOwnerId_ShouldReturnListBookingDtoWithStateParamCURRENT() {
         Mockito.when(userService.getUserById(1L)).thenReturn(user);
-        Mockito.when(bookingRepository.findByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(eq(1L), any(), any()))
-                .thenReturn(List.of(booking));
-        Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
 
-        List<BookingDto> result = bookingServiceImpl.getBookingsForItemsByOwnerId(1L, StateParam.CURRENT);
+        BookingPageDto result = bookingServiceImpl.getBookingsForItemsByOwnerId(1L, StateParam.CURRENT, null, 20);
 
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst()).isEqualTo(bookingDto);
-        verify(bookingRepository).findByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(eq(1L), any(), any());
+        assertThat(result.getBookings()).hasSize(1);
+        assertThat(result.getBookings().getFirst()).isEqualTo(bookingDto);
+        verify(bookingRepository).findProjectedBy(any(Specification.class), anyInt());
     }
 
     @Test
     void getBookingsForItemsByOwnerId_ShouldReturnListBookingDtoWithStateParamPAST() {
         Mockito.when(userService.getUserById(1L)).thenReturn(user);
-        Mockito.when(bookingRepository.findByItemOwnerIdAndEndBeforeOrderByStartDesc(eq(1L), any()))
-                .thenReturn(List.of(booking));
-        Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingRepository.findArchivedProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
 
-        List<BookingDto> result = bookingServiceImpl.getBookingsForItemsByOwnerId(1L, StateParam.PAST);
+        BookingPageDto result = bookingServiceImpl.getBookingsForItemsByOwnerId(1L, StateParam.PAST, null, 20);
 
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst()).isEqualTo(bookingDto);
-        verify(bookingRepository).findByItemOwnerIdAndEndBeforeOrderByStartDesc(eq(1L), any());
+        assertThat(result.getBookings()).hasSize(1);
+        assertThat(result.getBookings().getFirst()).isEqualTo(bookingDto);
+        verify(bookingRepository).findProjectedBy(any(Specification.class), anyInt());
     }
 
     @Test
     void getBookingsForItemsByOwnerId_ShouldReturnListBookingDtoWithStateParamFUTURE() {
         Mockito.when(userService.getUserById(1L)).thenReturn(user);
-        Mockito.when(bookingRepository.findByItemOwnerIdAndStartAfterOrderByStartDesc(eq(1L), any()))
-                .thenReturn(List.of(booking));
-        Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
 
-        List<BookingDto> result = bookingServiceImpl.getBookingsForItemsByOwnerId(1L, StateParam.FUTURE);
+        BookingPageDto result = bookingServiceImpl.getBookingsForItemsByOwnerId(1L, StateParam.FUTURE, null, 20);
 
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst()).isEqualTo(bookingDto);
-        verify(bookingRepository).findByItemOwnerIdAndStartAfterOrderByStartDesc(eq(1L), any());
+        assertThat(result.getBookings()).hasSize(1);
+        assertThat(result.getBookings().getFirst()).isEqualTo(bookingDto);
+        verify(bookingRepository).findProjectedBy(any(Specification.class), anyInt());
     }
 
     @Test
     void getBookingsForItemsByOwnerId_ShouldReturnListBookingDtoWithStateParamWAITING() {
         Mockito.when(userService.getUserById(1L)).thenReturn(user);
-        Mockito.when(bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(1L, BookingStatus.WAITING))
-                .thenReturn(List.of(booking));
-        Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
 
-        List<BookingDto> result = bookingServiceImpl.getBookingsForItemsByOwnerId(1L, StateParam.WAITING);
+        BookingPageDto result = bookingServiceImpl.getBookingsForItemsByOwnerId(1L, StateParam.WAITING, null, 20);
 
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst()).isEqualTo(bookingDto);
-        verify(bookingRepository).findByItemOwnerIdAndStatusOrderByStartDesc(1L, BookingStatus.WAITING);
+        assertThat(result.getBookings()).hasSize(1);
+        assertThat(result.getBookings().getFirst()).isEqualTo(bookingDto);
+        verify(bookingRepository).findProjectedBy(any(Specification.class), anyInt());
     }
 
     @Test
     void getBookingsForItemsByOwnerId_ShouldReturnListBookingDtoWithStateParamREJECTED() {
         Mockito.when(userService.getUserById(1L)).thenReturn(user);
-        Mockito.when(bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(1L, BookingStatus.REJECTED))
-                .thenReturn(List.of(booking));
-        Mockito.when(bookingMapStruct.toBookingDto(booking)).thenReturn(bookingDto);
+        Mockito.when(bookingRepository.findProjectedBy(any(Specification.class), anyInt()))
+                .thenReturn(Window.from(List.of(bookingDtoProjection), index -> ScrollPosition.keyset()));
+        Mockito.when(bookingMapStruct.toBookingDto(bookingDtoProjection)).thenReturn(bookingDto);
 
-        List<BookingDto> result = bookingServiceImpl.getBookingsForItemsByOwnerId(1L, StateParam.REJECTED);
+        BookingPageDto result = bookingServiceImpl.getBookingsForItemsByOwnerId(1L, StateParam.REJECTED, null, 20);
 
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst()).isEqualTo(bookingDto);
-        verify(bookingRepository).findByItemOwnerIdAndStatusOrderByStartDesc(1L, BookingStatus.REJECTED);
+        assertThat(result.getBookings()).hasSize(1);
+        assertThat(result.getBookings().getFirst()).isEqualTo(bookingDto);
+        verify(bookingRepository).findProjectedBy(any(Specification.class), anyInt());
     }
 
     @Test
@@ -376,6 +732,16 @@ class BookingServiceImplTest {
                 .isInstanceOf(AccessException.class);
     }
 
+    @Test
+    void approvedBooking_ShouldThrowConflictException_WhenBookingAlreadyDecided() {
+        booking.setStatus(BookingStatus.APPROVED);
+        Mockito.when(bookingRepository.findByIdWithBookerAndItem(1L)).thenReturn(Optional.of(booking));
+
+        assertThatThrownBy(() -> bookingServiceImpl.approvedBooking(1L, 1L, false))
+                .isInstanceOf(ConflictException.class);
+        verify(bookingOutbox, times(0)).save(any(), any());
+    }
+
     @Test
     void getBookingByBookerIdOrOwnerId_ShouldThrowNotFoundException_WhenBookingDoesNotExist() {
         Mockito.when(bookingRepository.findByIdWithBookerAndItem(1L)).thenReturn(Optional.empty());
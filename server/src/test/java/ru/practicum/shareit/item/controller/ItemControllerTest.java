@@ -8,14 +8,20 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.exception.AccessException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.*;
+import ru.practicum.shareit.item.model.AvailabilityUnit;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.util.IdempotencyStore;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -24,9 +30,11 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static ru.practicum.shareit.util.AppConstant.CUSTOM_REQUEST_HEADER_USER_ID;
+import static ru.practicum.shareit.util.AppConstant.IDEMPOTENCY_KEY_HEADER;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(ItemController.class)
+@Import(IdempotencyStore.class)
 class ItemControllerTest {
 
     @Autowired
@@ -103,6 +111,27 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.name").value(itemDto.getName()));
     }
 
+    @Test
+    void addItem_ShouldReturnConflict_WhenIdempotencyKeyReusedForAnotherItem() throws Exception {
+        Mockito.when(itemService.addItem(eq(1L), any(NewItemAddRequest.class)))
+                .thenReturn(itemDto);
+        mockMvc.perform(post("/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L)
+                        .header(IDEMPOTENCY_KEY_HEADER, "item-key")
+                        .content(objectMapper.writeValueAsString(newItemAddRequest)))
+                .andExpect(status().isCreated());
+        newItemAddRequest.setName("anotherItem");
+
+        mockMvc.perform(post("/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L)
+                        .header(IDEMPOTENCY_KEY_HEADER, "item-key")
+                        .content(objectMapper.writeValueAsString(newItemAddRequest)))
+                .andExpect(status().isConflict());
+        Mockito.verify(itemService, Mockito.times(1)).addItem(eq(1L), any(NewItemAddRequest.class));
+    }
+
     @Test
     void updateItem_ShouldReturnUpdatedItem() throws Exception {
         Mockito.when(itemService.updateItem(eq(1L), eq(1L), any(UpdateItemRequest.class)))
@@ -151,14 +180,36 @@ class ItemControllerTest {
 
     @Test
     void searchItems_ShouldReturnItemList() throws Exception {
-        Mockito.when(itemService.searchItemsByText("Test"))
-                .thenReturn(List.of(itemDto));
+        Mockito.when(itemService.searchItemsByText("Test", null, null, false, 1, 5))
+                .thenReturn(new PageImpl<>(List.of(itemDto), PageRequest.of(1, 5), 6));
 
         mockMvc.perform(get("/items/search")
-                        .param("text", "Test"))
+                        .param("text", "Test")
+                        .param("page", "1")
+                        .param("size", "5"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(itemDto.getId()))
-                .andExpect(jsonPath("$[0].name").value(itemDto.getName()));
+                .andExpect(jsonPath("$.content[0].id").value(itemDto.getId()))
+                .andExpect(jsonPath("$.content[0].name").value(itemDto.getName()))
+                .andExpect(jsonPath("$.number").value(1))
+                .andExpect(jsonPath("$.size").value(5))
+                .andExpect(jsonPath("$.totalElements").value(6))
+                .andExpect(jsonPath("$.totalPages").value(2))
+                .andExpect(jsonPath("$.last").value(true))
+                .andExpect(jsonPath("$.pageable").doesNotExist());
+    }
+
+    @Test
+    void searchItems_ShouldPassBookingPeriod() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Mockito.when(itemService.searchItemsByText("Test", from, from.plusDays(2), false, 0, 10))
+                .thenReturn(new PageImpl<>(List.of(itemDto)));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "Test")
+                        .param("from", "2030-01-01T10:00:00")
+                        .param("to", "2030-01-03T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(itemDto.getId()));
     }
 
     @Test
@@ -229,9 +280,34 @@ class ItemControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void searchItems_ShouldPassFuzzyMode() throws Exception {
+        Mockito.when(itemService.searchItemsByText("Tset", null, null, true, 0, 10))
+                .thenReturn(new PageImpl<>(List.of(itemDto)));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "Tset")
+                        .param("fuzzy", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(itemDto.getId()));
+    }
+
+    @Test
+    void suggestItems_ShouldReturnSuggestions() throws Exception {
+        Mockito.when(itemService.suggestItems("Te", 5))
+                .thenReturn(List.of(new ItemSuggestionDto(itemDto.getId(), itemDto.getName())));
+
+        mockMvc.perform(get("/items/suggest")
+                        .param("prefix", "Te")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(itemDto.getId()))
+                .andExpect(jsonPath("$[0].name").value(itemDto.getName()));
+    }
+
     @Test
     void searchItems_ShouldReturnInternalError_WhenServiceFails() throws Exception {
-        Mockito.when(itemService.searchItemsByText("fail"))
+        Mockito.when(itemService.searchItemsByText("fail", null, null, false, 0, 10))
                 .thenThrow(new RuntimeException("ошибка поиска"));
 
         mockMvc.perform(get("/items/search")
@@ -263,4 +339,29 @@ class ItemControllerTest {
                 .andExpect(status().isNotFound());
     }
 
-}
\ No newline at end of file
+    @Test
+    void getItemAvailability_ShouldReturnSlotsForRequestedUnit() throws Exception {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        ItemAvailabilityDto availability = ItemAvailabilityDto.builder()
+                .itemId(1L)
+                .from(from)
+                .to(from.plusDays(1))
+                .unit(AvailabilityUnit.DAY)
+                .slots(List.of(new AvailabilitySlotDto(from.atStartOfDay(), true),
+                        new AvailabilitySlotDto(from.plusDays(1).atStartOfDay(), false)))
+                .build();
+        Mockito.when(itemService.getItemAvailability(1L, from, from.plusDays(1), AvailabilityUnit.DAY))
+                .thenReturn(availability);
+
+        mockMvc.perform(get("/items/1/availability")
+                        .header(CUSTOM_REQUEST_HEADER_USER_ID, 1L)
+                        .param("from", "2030-01-01")
+                        .param("to", "2030-01-02")
+                        .param("unit", "day"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unit").value("DAY"))
+                .andExpect(jsonPath("$.slots.length()").value(2))
+                .andExpect(jsonPath("$.slots[1].free").value(false));
+    }
+
+}
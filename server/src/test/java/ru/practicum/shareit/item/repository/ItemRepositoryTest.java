@@ -0,0 +1,130 @@
+package ru.practicum.shareit.item.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemNamePopularity;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class ItemRepositoryTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private LocalDateTime from = LocalDateTime.of(2030, 1, 10, 12, 0);
+    private LocalDateTime to = LocalDateTime.of(2030, 1, 12, 12, 0);
+    private User booker;
+    private Item free;
+    private Item booked;
+    private Item rejected;
+    private Item adjacent;
+
+    @BeforeEach
+    void setup() {
+        User owner = entityManager.persist(User.builder().name("owner").email("owner@test.ru").build());
+        booker = entityManager.persist(User.builder().name("booker").email("booker@test.ru").build());
+        free = persistItem(owner, "дрель свободная");
+        booked = persistItem(owner, "дрель занятая");
+        rejected = persistItem(owner, "дрель с отклонённой бронью");
+        adjacent = persistItem(owner, "дрель со смежной бронью");
+        persistBooking(booked, from.minusDays(1), from.plusHours(1), BookingStatus.WAITING);
+        persistBooking(rejected, from, to, BookingStatus.REJECTED);
+        persistBooking(adjacent, to, to.plusDays(1), BookingStatus.APPROVED);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void searchAvailableItemsByText_ShouldExcludeItemsWithOverlappingBlockingBookings() {
+        Page<Item> result = itemRepository.searchAvailableItemsByText("дрель", from, to,
+                BookingIntervalIndex.BLOCKING_STATUSES, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting(Item::getId)
+                .containsExactlyInAnyOrder(free.getId(), rejected.getId(), adjacent.getId());
+        assertThat(itemRepository.searchItemsByText("дрель", PageRequest.of(0, 10)).getTotalElements())
+                .isEqualTo(4);
+        assertThat(itemRepository.findIdsFreeInPeriod(List.of(free.getId(), booked.getId(), adjacent.getId()),
+                from, to, BookingIntervalIndex.BLOCKING_STATUSES))
+                .containsExactlyInAnyOrder(free.getId(), adjacent.getId());
+    }
+
+    @Test
+    void searchItemsByText_ShouldRankNameMatchesFirstAndPaginate() {
+        Item byDescription = entityManager.persist(Item.builder()
+                .name("перфоратор")
+                .description("мощнее, чем дрель")
+                .available(true)
+                .owner(free.getOwner())
+                .build());
+        entityManager.flush();
+
+        Page<Item> firstPage = itemRepository.searchItemsByText("ДРЕЛЬ", PageRequest.of(0, 3));
+        Page<Item> lastPage = itemRepository.searchItemsByText("ДРЕЛЬ", PageRequest.of(1, 3));
+
+        assertThat(firstPage.getContent()).extracting(Item::getId)
+                .containsExactly(free.getId(), booked.getId(), rejected.getId());
+        assertThat(lastPage.getContent()).extracting(Item::getId)
+                .containsExactly(adjacent.getId(), byDescription.getId());
+        assertThat(lastPage.getTotalElements()).isEqualTo(5);
+        assertThat(lastPage.isLast()).isTrue();
+    }
+
+    @Test
+    void findAvailableNamePopularity_ShouldCountApprovedBookingsOnly() {
+        persistBooking(free, to.plusDays(5), to.plusDays(6), BookingStatus.APPROVED);
+        persistBooking(free, to.plusDays(7), to.plusDays(8), BookingStatus.APPROVED);
+        entityManager.persist(Item.builder()
+                .name("скрытая дрель")
+                .description("testDescription")
+                .available(false)
+                .owner(free.getOwner())
+                .build());
+        entityManager.flush();
+
+        List<ItemNamePopularity> result = itemRepository.findAvailableNamePopularity();
+
+        assertThat(result).hasSize(4).contains(
+                new ItemNamePopularity(free.getId(), free.getName(), 2L),
+                new ItemNamePopularity(booked.getId(), booked.getName(), 0L),
+                new ItemNamePopularity(adjacent.getId(), adjacent.getName(), 1L));
+        assertThat(itemRepository.findAvailableNamePopularityByIds(List.of(free.getId())))
+                .containsExactly(new ItemNamePopularity(free.getId(), free.getName(), 2L));
+    }
+
+    private Item persistItem(User owner, String name) {
+        return entityManager.persist(Item.builder()
+                .name(name)
+                .description("testDescription")
+                .available(true)
+                .owner(owner)
+                .build());
+    }
+
+    private Booking persistBooking(Item item, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return entityManager.persist(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(end)
+                .status(status)
+                .build());
+    }
+
+}
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.dto.ItemText;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class ItemTermDictionaryTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private ItemTermDictionary itemTermDictionary;
+
+    @BeforeEach
+    void setup() {
+        Mockito.when(itemRepository.findAvailableTexts()).thenReturn(List.of(
+                new ItemText(1L, "Дрель", "аккумуляторная, два аккумулятора"),
+                new ItemText(2L, "Перфоратор", "ударная дрель-перфоратор"),
+                new ItemText(3L, "Отвёртка", "крестовая"),
+                new ItemText(4L, "Дрезина", "ручная")));
+        itemTermDictionary.load();
+    }
+
+    @Test
+    void search_ShouldFindTermsWithinEditDistance() {
+        assertThat(itemTermDictionary.search("дрелъ")).containsExactly(1L, 2L);
+        assertThat(itemTermDictionary.search("пефоратр")).containsExactly(2L);
+        assertThat(itemTermDictionary.search("аккамуляторная")).containsExactly(1L);
+        assertThat(itemTermDictionary.search("кирпич")).isEmpty();
+    }
+
+    @Test
+    void search_ShouldRequireEveryWordAndRankByTotalDistance() {
+        assertThat(itemTermDictionary.search("дрель ударная")).containsExactly(2L);
+        assertThat(itemTermDictionary.search("дрезна")).containsExactly(4L);
+
+        itemTermDictionary.put(Item.builder().id(5L).name("Дрелъ").description("с опечаткой в названии")
+                .available(true).build());
+
+        assertThat(itemTermDictionary.search("дрелъ")).containsExactly(5L, 1L, 2L);
+    }
+
+    @Test
+    void search_ShouldMatchShortWordsExactly() {
+        assertThat(itemTermDictionary.search("дв")).isEmpty();
+        assertThat(itemTermDictionary.search("два")).containsExactly(1L);
+    }
+
+    @Test
+    void put_ShouldReplaceTermsAndDropUnavailableItems() {
+        itemTermDictionary.put(Item.builder().id(3L).name("Шуруповёрт").description("крестовая бита")
+                .available(true).build());
+        itemTermDictionary.put(Item.builder().id(2L).name("Перфоратор").description("ударная дрель")
+                .available(false).build());
+        itemTermDictionary.delete(4L);
+
+        assertThat(itemTermDictionary.search("отвертка")).isEmpty();
+        assertThat(itemTermDictionary.search("шуруповерт")).containsExactly(3L);
+        assertThat(itemTermDictionary.search("дрель")).containsExactly(1L);
+        assertThat(itemTermDictionary.search("дрезина")).isEmpty();
+    }
+
+}
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class SearchResultCacheTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SearchResultCache searchResultCache;
+    private PageRequest pageRequest = PageRequest.of(0, 10);
+    private Item drill = Item.builder().id(1L).name("Дрель").description("ударная").available(true).build();
+    private Item saw = Item.builder().id(2L).name("Пила").description("цепная").available(true).build();
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        searchResultCache = new SearchResultCache(itemRepository, meterRegistry, 100);
+    }
+
+    @Test
+    void get_ShouldServeRepeatedQueryFromCacheAndCountHitRatio() {
+        AtomicInteger loads = new AtomicInteger();
+        Mockito.when(itemRepository.findAllByIdInOrder(List.of(1L))).thenReturn(List.of(drill));
+
+        searchResultCache.get("Дрель", false, pageRequest, loader(loads, drill));
+        Page<Item> cached = searchResultCache.get("дрель", false, pageRequest, loader(loads, drill));
+
+        assertThat(loads).hasValue(1);
+        assertThat(cached.getContent()).containsExactly(drill);
+        assertThat(cached.getTotalElements()).isEqualTo(1);
+        assertThat(meterRegistry.get("shareit.items.search.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void invalidate_ShouldDropOnlyQueriesTouchingItemWords() {
+        AtomicInteger loads = new AtomicInteger();
+        searchResultCache.get("дрел", false, pageRequest, loader(loads, drill));
+        searchResultCache.get("дрели", false, pageRequest, loader(loads, drill));
+        searchResultCache.get("пила", false, pageRequest, loader(loads, saw));
+
+        searchResultCache.invalidate("Дрель ударная");
+
+        assertThat(searchResultCache.size()).isEqualTo(1);
+        assertThat(meterRegistry.get("shareit.items.search.cache.invalidations").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidate_ShouldDropFuzzyQueriesWithinEditDistance() {
+        AtomicInteger loads = new AtomicInteger();
+        searchResultCache.get("брель", true, pageRequest, loader(loads, drill));
+        searchResultCache.get("брель", false, pageRequest, loader(loads));
+
+        searchResultCache.invalidate("Дрель");
+
+        assertThat(searchResultCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void get_ShouldNotCachePageComputedBeforeConcurrentWrite() {
+        searchResultCache.get("дрель", false, pageRequest, () -> {
+            searchResultCache.invalidate("Пила");
+            return new PageImpl<>(List.of(drill), pageRequest, 1);
+        });
+
+        assertThat(searchResultCache.size()).isZero();
+    }
+
+    @Test
+    void get_ShouldAdmitNewPageOnlyWhenMoreFrequentThanVictim() {
+        searchResultCache = new SearchResultCache(itemRepository, new SimpleMeterRegistry(), 5);
+        AtomicInteger loads = new AtomicInteger();
+        // вес страницы с двумя вещами — 3, в кэш весом 5 помещается только одна
+        searchResultCache.get("пила", false, pageRequest, loader(loads, saw, drill));
+        searchResultCache.get("пила", false, pageRequest, loader(loads, saw, drill));
+
+        searchResultCache.get("дрель", false, pageRequest, loader(loads, drill, saw));
+        assertThat(searchResultCache.size()).isEqualTo(1);
+        assertThat(loads).hasValue(2);
+
+        // третий запрос «дрели» чаще двух запросов «пилы» — «пила» вытесняется, четвёртый берётся из кэша
+        searchResultCache.get("дрель", false, pageRequest, loader(loads, drill, saw));
+        searchResultCache.get("дрель", false, pageRequest, loader(loads, drill, saw));
+        searchResultCache.get("дрель", false, pageRequest, loader(loads, drill, saw));
+        assertThat(loads).hasValue(4);
+        assertThat(searchResultCache.size()).isEqualTo(1);
+    }
+
+    private Supplier<Page<Item>> loader(AtomicInteger loads, Item... items) {
+        return () -> {
+            loads.incrementAndGet();
+            return new PageImpl<>(List.of(items), pageRequest, items.length);
+        };
+    }
+
+}
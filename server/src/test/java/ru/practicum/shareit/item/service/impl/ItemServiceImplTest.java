@@ -8,7 +8,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.dto.NewBookingAddRequest;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
@@ -16,11 +21,18 @@ import ru.practicum.shareit.booking.model.StateParam;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.AccessException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.*;
+import ru.practicum.shareit.item.model.AvailabilityUnit;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.FuzzyItemSearch;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemTermDictionary;
+import ru.practicum.shareit.item.search.SearchResultCache;
+import ru.practicum.shareit.item.suggest.ItemSuggestIndex;
 import ru.practicum.shareit.request.dto.NewRequest;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.model.Request;
@@ -29,15 +41,19 @@ import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class ItemServiceImplTest {
@@ -51,6 +67,27 @@ class ItemServiceImplTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private ItemAvailabilityIndex itemAvailabilityIndex;
+
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+
+    @Mock
+    private FuzzyItemSearch fuzzyItemSearch;
+
+    @Mock
+    private ItemTermDictionary itemTermDictionary;
+
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    @Mock
+    private ItemSuggestIndex itemSuggestIndex;
+
     @Mock
     private UserService userService;
 
@@ -221,6 +258,9 @@ class ItemServiceImplTest {
         verify(userService, times(1)).getUserById(1L);
         verify(requestService, times(1)).getRequestById(1L);
         verify(itemRepository, times(1)).save(item);
+        verify(searchResultCache, times(1)).invalidate("testItem testDescription");
+        verify(itemTermDictionary, times(1)).put(item);
+        verify(itemSuggestIndex, times(1)).put(item);
         verify(itemMapStruct, times(1)).toItemDto(item);
     }
 
@@ -239,34 +279,83 @@ class ItemServiceImplTest {
         verify(userService, times(1)).getUserById(1L);
         verify(itemMapStruct, times(1)).updateItem(item, updateItemRequest);
         verify(itemRepository, times(1)).save(item);
+        verify(itemTermDictionary, times(1)).put(item);
+        verify(itemSuggestIndex, times(1)).put(item);
         verify(itemMapStruct, times(1)).toItemDto(item);
     }
 
     @Test
-    void getItemDtoWithDateById_ShouldReturnItemDtoWithBookings() {
+    void getItemDtoWithDateById_ShouldReturnMaterializedBookingDatesWithoutBookingQueries() {
+        item.setNextBookingStart(LocalDateTime.now().plusDays(1));
+        item.setLastBookingStart(LocalDateTime.now().minusDays(1));
         ItemDtoWithDate itemDtoWithDate = ItemDtoWithDate.builder()
                 .id(1L)
                 .name("testItem")
                 .description("testDescription")
                 .available(true)
+                .nextBooking(item.getNextBookingStart())
+                .lastBooking(item.getLastBookingStart())
                 .build();
 
         Mockito.when(itemRepository.findByIdWithOwnerAndRequest(1L)).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findFirstByItemAndStartAfterOrderByStartAsc(eq(item), any(LocalDateTime.class)))
-                .thenReturn(Optional.of(booking));
-        Mockito.when(bookingRepository.findFirstByItemAndEndAfterOrderByEndDesc(eq(item), any(LocalDateTime.class)))
-                .thenReturn(Optional.of(booking));
         Mockito.when(itemMapStruct.itemDtoWithDate(item)).thenReturn(itemDtoWithDate);
 
         ItemDtoWithDate result = itemServiceImpl.getItemDtoWithDateById(1L);
 
-        assertThat(result).isNotNull();
-        assertThat(result.getNextBooking()).isEqualTo(booking.getStart());
-        assertThat(result.getLastBooking()).isEqualTo(booking.getStart());
+        assertThat(result.getNextBooking()).isEqualTo(item.getNextBookingStart());
+        assertThat(result.getLastBooking()).isEqualTo(item.getLastBookingStart());
         verify(itemRepository, times(1)).findByIdWithOwnerAndRequest(1L);
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void getItemDtoWithDateById_ShouldRefreshBookingDates_WhenNextBookingAlreadyStarted() {
+        item.setNextBookingId(1L);
+        item.setNextBookingStart(LocalDateTime.now().minusMinutes(1));
+        Mockito.when(itemRepository.findByIdWithOwnerAndRequest(1L)).thenReturn(Optional.of(item));
+        Mockito.when(bookingRepository.findFirstByItemIdAndStatusInAndStartAfterOrderByStartAsc(eq(1L), any(), any()))
+                .thenReturn(Optional.empty());
+        Mockito.when(bookingRepository.findFirstByItemIdAndStatusInAndStartLessThanEqualOrderByStartDesc(eq(1L), any(), any()))
+                .thenReturn(Optional.of(booking));
+        Mockito.when(itemMapStruct.itemDtoWithDate(item)).thenReturn(new ItemDtoWithDate());
+
+        itemServiceImpl.getItemDtoWithDateById(1L);
+
+        assertThat(item.getLastBookingId()).isEqualTo(booking.getId());
+        assertThat(item.getNextBookingStart()).isNull();
+        verify(itemRepository, times(1)).updateBookingDates(1L, booking.getId(), booking.getStart(), null, null);
+    }
+
+    @Test
+    void applyNewBookings_ShouldOfferEarliestFutureBookingAsNext() {
+        Booking later = Booking.builder()
+                .id(3L)
+                .item(item)
+                .start(LocalDateTime.now().plusDays(5))
+                .end(LocalDateTime.now().plusDays(6))
+                .build();
+        Booking earlier = Booking.builder()
+                .id(2L)
+                .item(item)
+                .start(LocalDateTime.now().plusDays(2))
+                .end(LocalDateTime.now().plusDays(3))
+                .build();
+
+        itemServiceImpl.applyNewBookings(List.of(later, earlier));
+
+        verify(itemRepository, times(1)).offerNextBooking(1L, 2L, earlier.getStart());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void refreshPassedBookingDates_ShouldRecalculateItemsWithStartedNextBooking() {
+        Mockito.when(itemRepository.findIdsWithNextBookingStartedBefore(any(LocalDateTime.class))).thenReturn(List.of(1L));
+
+        itemServiceImpl.refreshPassedBookingDates();
+
         verify(bookingRepository, times(1))
-                .findFirstByItemAndStartAfterOrderByStartAsc(eq(item), any(LocalDateTime.class));
-        verify(itemMapStruct, times(1)).itemDtoWithDate(item);
+                .findFirstByItemIdAndStatusInAndStartAfterOrderByStartAsc(eq(1L), any(), any(LocalDateTime.class));
+        verify(itemRepository, times(1)).updateBookingDates(eq(1L), any(), any(), any(), any());
     }
 
     @Test
@@ -282,30 +371,133 @@ class ItemServiceImplTest {
         verify(itemMapStruct, times(1)).toItemDto(item);
     }
 
+    @Test
+    void updateItem_ShouldInvalidateSearchCacheForPreviousAndNewText() {
+        Mockito.when(itemRepository.findByIdWithOwnerAndRequest(1L)).thenReturn(Optional.of(item));
+        Mockito.when(userService.getUserById(1L)).thenReturn(user);
+        Mockito.doAnswer(invocation -> {
+            item.setName("renamedItem");
+            return null;
+        }).when(itemMapStruct).updateItem(item, updateItemRequest);
+        Mockito.when(itemRepository.save(item)).thenReturn(item);
+
+        itemServiceImpl.updateItem(1L, 1L, updateItemRequest);
+
+        verify(searchResultCache, times(1)).invalidate("testItem testDescription", "renamedItem testDescription");
+    }
+
+    @Test
+    void deleteItem_ShouldInvalidateSearchCache() {
+        Mockito.when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+
+        itemServiceImpl.deleteItem(1L);
+
+        verify(itemRepository, times(1)).deleteById(1L);
+        verify(searchResultCache, times(1)).invalidate("testItem testDescription");
+    }
+
     @Test
     void deleteItem_ShouldInvokeRepositoryDelete() {
         itemServiceImpl.deleteItem(1L);
         verify(itemRepository, times(1)).deleteById(1L);
+        verify(itemTermDictionary, times(1)).delete(1L);
+        verify(itemSuggestIndex, times(1)).delete(1L);
+        verify(bookingIntervalIndex, times(1)).evict(1L);
+        verify(itemAvailabilityIndex, times(1)).evict(1L);
     }
 
     @Test
-    void searchItemsByText_ShouldReturnListOfItems() {
-        Mockito.when(itemRepository.searchItemsByText("test")).thenReturn(List.of(item));
+    void searchItemsByText_ShouldReturnPageOfItems() {
+        PageRequest pageRequest = PageRequest.of(1, 5);
+        passThroughSearchCache();
+        Mockito.when(itemSearchEngine.search("test query", null, null, pageRequest))
+                .thenReturn(new PageImpl<>(List.of(item), pageRequest, 6));
         Mockito.when(itemMapStruct.toItemDto(item)).thenReturn(itemDto);
 
-        List<ItemDto> result = itemServiceImpl.searchItemsByText("test");
+        Page<ItemDto> result = itemServiceImpl.searchItemsByText("  test   query ", null, null, false, 1, 5);
 
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst()).isEqualTo(itemDto);
-        verify(itemRepository, times(1)).searchItemsByText("test");
+        assertThat(result.getContent()).containsExactly(itemDto);
+        assertThat(result.getTotalElements()).isEqualTo(6);
+        verify(searchResultCache, times(1)).get(eq("test query"), eq(false), eq(pageRequest), any());
+        verify(itemSearchEngine, times(1)).search("test query", null, null, pageRequest);
         verify(itemMapStruct, times(1)).toItemDto(item);
     }
 
     @Test
-    void searchItemsByText_ShouldReturnEmptyList_WhenTextBlank() {
-        List<ItemDto> result = itemServiceImpl.searchItemsByText("   ");
+    void searchItemsByText_ShouldUseFuzzySearch_WhenFuzzyRequested() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        passThroughSearchCache();
+        Mockito.when(fuzzyItemSearch.search("tset", null, null, pageRequest))
+                .thenReturn(new PageImpl<>(List.of(item), pageRequest, 1));
+        Mockito.when(itemMapStruct.toItemDto(item)).thenReturn(itemDto);
+
+        Page<ItemDto> result = itemServiceImpl.searchItemsByText("tset", null, null, true, 0, 10);
+
+        assertThat(result.getContent()).containsExactly(itemDto);
+        verifyNoInteractions(itemSearchEngine);
+    }
+
+    @Test
+    void searchItemsByText_ShouldReturnEmptyPage_WhenTextBlank() {
+        Page<ItemDto> result = itemServiceImpl.searchItemsByText("   ", null, null, false, 0, 10);
         assertThat(result).isEmpty();
-        verify(itemRepository, times(0)).searchItemsByText(any());
+        verify(itemSearchEngine, times(0)).search(any(), any(), any(), any());
+    }
+
+    @Test
+    void searchItemsByText_ShouldExcludeBookedItems_WhenPeriodGiven() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = from.plusDays(2);
+        Mockito.when(itemSearchEngine.search("test", from, to, PageRequest.of(0, 10)))
+                .thenReturn(new PageImpl<>(List.of(item)));
+        Mockito.when(itemMapStruct.toItemDto(item)).thenReturn(itemDto);
+
+        Page<ItemDto> result = itemServiceImpl.searchItemsByText("test", from, to, false, 0, 10);
+
+        assertThat(result.getContent()).containsExactly(itemDto);
+        verify(itemSearchEngine, times(1)).search("test", from, to, PageRequest.of(0, 10));
+        verifyNoInteractions(searchResultCache);
+    }
+
+    @Test
+    void searchItemsByText_ShouldThrowValidationException_WhenPeriodIncomplete() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+        Assertions.assertThatThrownBy(() -> itemServiceImpl.searchItemsByText("test", from, null, false, 0, 10))
+                .isInstanceOf(ValidationException.class);
+        Assertions.assertThatThrownBy(() -> itemServiceImpl.searchItemsByText("test", from, from, false, 0, 10))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(itemSearchEngine);
+    }
+
+    @Test
+    void suggestItems_ShouldReturnSuggestionsFromIndex() {
+        ItemSuggestionDto suggestion = new ItemSuggestionDto(1L, "testItem");
+        Mockito.when(itemSuggestIndex.getTopSize()).thenReturn(10);
+        Mockito.when(itemSuggestIndex.suggest("te", 5)).thenReturn(List.of(suggestion));
+
+        assertThat(itemServiceImpl.suggestItems("te", 5)).containsExactly(suggestion);
+        assertThat(itemServiceImpl.suggestItems(" ", 5)).isEmpty();
+        verify(itemSuggestIndex, times(1)).suggest(any(), Mockito.anyInt());
+    }
+
+    @Test
+    void suggestItems_ShouldThrowValidationException_WhenSizeOutOfRange() {
+        Mockito.when(itemSuggestIndex.getTopSize()).thenReturn(10);
+
+        Assertions.assertThatThrownBy(() -> itemServiceImpl.suggestItems("te", 0))
+                .isInstanceOf(ValidationException.class);
+        Assertions.assertThatThrownBy(() -> itemServiceImpl.suggestItems("te", 11))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void searchItemsByText_ShouldThrowValidationException_WhenPageInvalid() {
+        Assertions.assertThatThrownBy(() -> itemServiceImpl.searchItemsByText("test", null, null, false, -1, 10))
+                .isInstanceOf(ValidationException.class);
+        Assertions.assertThatThrownBy(() -> itemServiceImpl.searchItemsByText("test", null, null, false, 0, 0))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(itemSearchEngine);
     }
 
     @Test
@@ -374,4 +566,47 @@ class ItemServiceImplTest {
                 .isInstanceOf(NotFoundException.class);
     }
 
-}
\ No newline at end of file
+    @Test
+    void getItemAvailability_ShouldMapBusyBitsToSlots() {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        BitSet busy = new BitSet();
+        busy.set(1);
+        Mockito.when(itemRepository.findByIdWithOwnerAndRequest(1L)).thenReturn(Optional.of(item));
+        Mockito.when(itemAvailabilityIndex.busyDays(1L, from, from.plusDays(2))).thenReturn(busy);
+
+        ItemAvailabilityDto result = itemServiceImpl.getItemAvailability(1L, from, from.plusDays(2), AvailabilityUnit.DAY);
+
+        assertThat(result.getSlots()).extracting(AvailabilitySlotDto::getFree).containsExactly(true, false, true);
+        assertThat(result.getSlots().get(2).getStart()).isEqualTo(from.plusDays(2).atStartOfDay());
+    }
+
+    @Test
+    void getItemAvailability_ShouldReturnHourlySlots() {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        Mockito.when(itemRepository.findByIdWithOwnerAndRequest(1L)).thenReturn(Optional.of(item));
+        Mockito.when(itemAvailabilityIndex.busyHours(1L, from.atStartOfDay(), from.plusDays(1).atStartOfDay()))
+                .thenReturn(new BitSet());
+
+        ItemAvailabilityDto result = itemServiceImpl.getItemAvailability(1L, from, from, AvailabilityUnit.HOUR);
+
+        assertThat(result.getSlots()).hasSize(24).allMatch(AvailabilitySlotDto::getFree);
+    }
+
+    @Test
+    void getItemAvailability_ShouldThrowValidationException_WhenPeriodTooLong() {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+
+        Assertions.assertThatThrownBy(() -> itemServiceImpl.getItemAvailability(1L, from, from.plusDays(31), AvailabilityUnit.HOUR))
+                .isInstanceOf(ValidationException.class);
+        Assertions.assertThatThrownBy(() -> itemServiceImpl.getItemAvailability(1L, from, from.minusDays(1), AvailabilityUnit.DAY))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(itemAvailabilityIndex);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void passThroughSearchCache() {
+        Mockito.when(searchResultCache.get(any(), Mockito.anyBoolean(), any(), any()))
+                .thenAnswer(invocation -> ((Supplier<Page<Item>>) invocation.getArgument(3)).get());
+    }
+
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.item.suggest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.dto.ItemNamePopularity;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSuggestIndexTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemSuggestIndex itemSuggestIndex;
+
+    @BeforeEach
+    void setup() {
+        itemSuggestIndex = new ItemSuggestIndex(itemRepository, 3);
+        Mockito.when(itemRepository.findAvailableNamePopularity()).thenReturn(List.of(
+                new ItemNamePopularity(1L, "Дрель", 5L),
+                new ItemNamePopularity(2L, "Дрель ударная", 9L),
+                new ItemNamePopularity(3L, "Дрелька детская", 1L),
+                new ItemNamePopularity(4L, "Домкрат", 7L),
+                new ItemNamePopularity(5L, "Дрезина", 0L)));
+        itemSuggestIndex.load();
+    }
+
+    @Test
+    void suggest_ShouldReturnTopByPopularityForPrefix() {
+        assertThat(ids(itemSuggestIndex.suggest("дре", 10))).containsExactly(2L, 1L, 3L);
+        assertThat(ids(itemSuggestIndex.suggest("Д", 2))).containsExactly(2L, 4L);
+        assertThat(ids(itemSuggestIndex.suggest("  ДРЕЛЬ  У", 10))).containsExactly(2L);
+        assertThat(itemSuggestIndex.suggest("дрелл", 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_ShouldMatchPrefixEndingInsideCompressedEdge() {
+        assertThat(ids(itemSuggestIndex.suggest("домк", 10))).containsExactly(4L);
+        assertThat(ids(itemSuggestIndex.suggest("дрез", 10))).containsExactly(5L);
+    }
+
+    @Test
+    void put_ShouldRenameAndRemoveUnavailableItems() {
+        itemSuggestIndex.put(Item.builder().id(2L).name("Перфоратор").available(true).build());
+        itemSuggestIndex.put(Item.builder().id(4L).name("Домкрат").available(false).build());
+        itemSuggestIndex.put(Item.builder().id(6L).name("Дрель новая").available(true).build());
+
+        assertThat(ids(itemSuggestIndex.suggest("дрел", 10))).containsExactly(1L, 3L, 6L);
+        assertThat(ids(itemSuggestIndex.suggest("пер", 10))).containsExactly(2L);
+        assertThat(itemSuggestIndex.suggest("дом", 10)).isEmpty();
+    }
+
+    @Test
+    void delete_ShouldPromoteNextItemIntoTop() {
+        itemSuggestIndex.delete(2L);
+
+        assertThat(ids(itemSuggestIndex.suggest("д", 10))).containsExactly(4L, 1L, 3L);
+        assertThat(itemSuggestIndex.suggest("дрель у", 10)).isEmpty();
+    }
+
+    @Test
+    void refreshPopularity_ShouldReorderSuggestions() {
+        Mockito.when(itemRepository.findAvailableNamePopularityByIds(List.of(3L)))
+                .thenReturn(List.of(new ItemNamePopularity(3L, "Дрелька детская", 20L)));
+
+        itemSuggestIndex.refreshPopularity(List.of(3L));
+
+        List<ItemSuggestionDto> result = itemSuggestIndex.suggest("дрел", 10);
+        assertThat(ids(result)).containsExactly(3L, 2L, 1L);
+        assertThat(result.getFirst().getName()).isEqualTo("Дрелька детская");
+    }
+
+    private static List<Long> ids(List<ItemSuggestionDto> suggestions) {
+        return suggestions.stream().map(ItemSuggestionDto::getId).toList();
+    }
+
+}
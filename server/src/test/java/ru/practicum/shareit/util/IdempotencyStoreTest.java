@@ -0,0 +1,117 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.ConflictException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private MutableClock clock;
+    private IdempotencyStore idempotencyStore;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock(Instant.parse("2030-01-01T10:00:00Z"));
+        idempotencyStore = new IdempotencyStore(2, Duration.ofHours(1), clock);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void execute_ShouldReplayStoredResultForRepeatedKey() {
+        Integer first = idempotencyStore.execute("items", 1L, "key", "request", calls::incrementAndGet);
+        Integer second = idempotencyStore.execute("items", 1L, "key", "request", calls::incrementAndGet);
+
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isEqualTo(1);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_ShouldSeparateKeysByUserAndScope() {
+        idempotencyStore.execute("items", 1L, "key", "request", calls::incrementAndGet);
+        idempotencyStore.execute("items", 2L, "key", "request", calls::incrementAndGet);
+        idempotencyStore.execute("bookings", 1L, "key", "request", calls::incrementAndGet);
+
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void execute_ShouldRunEveryTime_WhenKeyMissing() {
+        idempotencyStore.execute("items", 1L, null, "request", calls::incrementAndGet);
+        idempotencyStore.execute("items", 1L, " ", "request", calls::incrementAndGet);
+
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(idempotencyStore.size()).isZero();
+    }
+
+    @Test
+    void execute_ShouldThrowConflictException_WhenKeyReusedForAnotherRequest() {
+        idempotencyStore.execute("items", 1L, "key", "request", calls::incrementAndGet);
+
+        assertThatThrownBy(() -> idempotencyStore.execute("items", 1L, "key", "another", calls::incrementAndGet))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void execute_ShouldReleaseKey_WhenActionFails() {
+        assertThatThrownBy(() -> idempotencyStore.execute("items", 1L, "key", "request", () -> {
+            throw new IllegalStateException("ошибка");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(idempotencyStore.execute("items", 1L, "key", "request", calls::incrementAndGet)).isEqualTo(1);
+    }
+
+    @Test
+    void execute_ShouldEvictOldestAndExpiredKeys() {
+        idempotencyStore.execute("items", 1L, "a", "request", calls::incrementAndGet);
+        idempotencyStore.execute("items", 1L, "b", "request", calls::incrementAndGet);
+        idempotencyStore.execute("items", 1L, "c", "request", calls::incrementAndGet);
+        assertThat(idempotencyStore.size()).isEqualTo(2);
+
+        assertThat(idempotencyStore.execute("items", 1L, "a", "request", calls::incrementAndGet)).isEqualTo(4);
+
+        clock.advance(Duration.ofHours(2));
+        assertThat(idempotencyStore.execute("items", 1L, "c", "request", calls::incrementAndGet)).isEqualTo(5);
+        assertThat(idempotencyStore.size()).isEqualTo(1);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+    }
+
+}